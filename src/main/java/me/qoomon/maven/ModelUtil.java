@@ -1,11 +1,14 @@
 package me.qoomon.maven;
 
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.*;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Created by qoomon on 18/11/2016.
@@ -40,4 +43,30 @@ public final class ModelUtil {
         }
     }
 
+    /**
+     * Determine base directories of modules, including modules of all profiles
+     *
+     * @param model            model
+     * @param projectDirectory base directory of model
+     * @return module directories, empty if project has no modules
+     */
+    public static Set<File> getModuleDirectories(Model model, File projectDirectory) {
+        Set<File> moduleDirectories = new LinkedHashSet<>();
+        for (String module : model.getModules()) {
+            moduleDirectories.add(getModuleDirectory(projectDirectory, module));
+        }
+        for (Profile profile : model.getProfiles()) {
+            for (String module : profile.getModules()) {
+                moduleDirectories.add(getModuleDirectory(projectDirectory, module));
+            }
+        }
+        return moduleDirectories;
+    }
+
+    private static File getModuleDirectory(File projectDirectory, String module) {
+        File moduleFile = new File(projectDirectory, module);
+        // module may refer to a pom file instead of a directory
+        return moduleFile.isFile() ? moduleFile.getParentFile() : moduleFile;
+    }
+
 }
@@ -0,0 +1,363 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working tree status based on git's file system monitor integration.
+ * <p>
+ * Requires a <code>core.fsmonitor</code> hook and, for untracked files, <code>core.untrackedCache</code>.
+ * Only index entries not marked as fsmonitor valid, untracked files and directories recorded in the untracked cache
+ * and paths reported as changed by the hook are compared by {@link GitStatusEngine}.
+ * Like git, the untracked cache is only used while content of <code>info/exclude</code>, <code>core.excludesFile</code>
+ * and per directory exclude files of its valid directories is unchanged.
+ * The index is never written, so the hook token does not advance.
+ */
+public final class FsMonitorStatusEngine {
+
+    private static final String FSMONITOR_EXTENSION = "FSMN";
+    private static final String UNTRACKED_CACHE_EXTENSION = "UNTR";
+    // ctime, mtime, dev, ino, uid, gid, size
+    private static final int STAT_DATA_LENGTH = 36;
+
+    private static final long HOOK_TIMEOUT_SECONDS = 10;
+
+    // comparing more paths than this is not faster than a full status
+    private static final int MAX_CANDIDATE_PATHS = 10_000;
+
+    /**
+     * @param repository       the repository
+     * @param includeUntracked if false, untracked files are neither scanned nor considered
+     * @param pathFilter       only paths matching this filter are compared
+     * @return working tree clean flag, or empty if fsmonitor data is not available or not sufficient
+     * @throws IOException if reading index, objects or working tree fails
+     */
+    public static Optional<Boolean> isClean(Repository repository, boolean includeUntracked, TreeFilter pathFilter) throws IOException {
+        return isClean(repository, repository.resolve(Constants.HEAD), includeUntracked, pathFilter);
+    }
+
+    /**
+     * @param repository       the repository
+     * @param headCommit       HEAD commit, null if there are no commits yet
+     * @param includeUntracked if false, untracked files are neither scanned nor considered
+     * @param pathFilter       only paths matching this filter are compared
+     * @return working tree clean flag, or empty if fsmonitor data is not available or not sufficient
+     * @throws IOException if reading index, objects or working tree fails
+     */
+    public static Optional<Boolean> isClean(Repository repository, ObjectId headCommit, boolean includeUntracked,
+                                            TreeFilter pathFilter) throws IOException {
+        final String hook = repository.getConfig().getString(ConfigConstants.CONFIG_CORE_SECTION, null, "fsmonitor");
+        if (hook == null || hook.isEmpty() || StringUtils.toBooleanOrNull(hook) != null) {
+            // no hook configured or builtin fsmonitor daemon
+            return Optional.empty();
+        }
+
+        final File indexFile = repository.getIndexFile();
+        if (!indexFile.isFile()) {
+            return Optional.empty();
+        }
+        final Set<String> candidatePaths = new TreeSet<>();
+        try (GitIndexFile index = GitIndexFile.open(indexFile)) {
+            final ByteBuffer fsMonitorData = index.getExtension(FSMONITOR_EXTENSION);
+            if (fsMonitorData == null) {
+                return Optional.empty();
+            }
+
+            // index entries not marked as fsmonitor valid
+            final int hookVersion = fsMonitorData.getInt();
+            final String hookToken;
+            if (hookVersion == 1) {
+                hookToken = Long.toString(fsMonitorData.getLong());
+            } else if (hookVersion == 2) {
+                hookToken = GitIndexFile.readNulTerminatedString(fsMonitorData);
+            } else {
+                return Optional.empty();
+            }
+            fsMonitorData.getInt(); // bitmap byte size
+            final BitSet invalidEntries = GitIndexFile.readEwahBitmap(fsMonitorData);
+            final GitIndexFile.EntryCursor entryCursor = index.entries();
+            while (entryCursor.next()) {
+                if (invalidEntries.get(entryCursor.getPosition()) || entryCursor.getStage() != 0) {
+                    candidatePaths.add(entryCursor.getPathString());
+                }
+            }
+
+            // untracked files and directories recorded in untracked cache
+            if (includeUntracked) {
+                final ByteBuffer untrackedCacheData = index.getExtension(UNTRACKED_CACHE_EXTENSION);
+                if (untrackedCacheData == null
+                        || !readUntrackedCache(untrackedCacheData, repository, candidatePaths)) {
+                    return Optional.empty();
+                }
+            }
+
+            // paths changed since index was written
+            final List<String> changedPaths = runHook(repository, hook, hookVersion, hookToken);
+            if (changedPaths == null) {
+                return Optional.empty();
+            }
+            for (String changedPath : changedPaths) {
+                if (changedPath.equals("/") || changedPath.equals(Constants.DOT_GIT_IGNORE) || changedPath.endsWith("/" + Constants.DOT_GIT_IGNORE)) {
+                    // everything or exclude patterns may have changed
+                    return Optional.empty();
+                }
+                String path = changedPath.endsWith("/") ? changedPath.substring(0, changedPath.length() - 1) : changedPath;
+                if (!path.isEmpty() && !path.equals(Constants.DOT_GIT) && !path.startsWith(Constants.DOT_GIT + "/")) {
+                    candidatePaths.add(path);
+                }
+            }
+
+            if (candidatePaths.size() > MAX_CANDIDATE_PATHS) {
+                return Optional.empty();
+            }
+
+            if (isIndexDifferent(repository, headCommit, index, pathFilter)) {
+                return Optional.of(false);
+            }
+            if (candidatePaths.isEmpty()) {
+                return Optional.of(true);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        TreeFilter candidateFilter = AndTreeFilter.create(pathFilter, PathFilterGroup.createFromStrings(candidatePaths));
+        return Optional.of(GitStatusEngine.isClean(repository, headCommit, includeUntracked, candidateFilter, 1));
+    }
+
+    /**
+     * Adds untracked files of valid directories and all invalid directories to <code>candidatePaths</code>.
+     *
+     * @return false if untracked cache can not be used, e.g. exclude patterns changed since it was written
+     */
+    private static boolean readUntrackedCache(ByteBuffer data, Repository repository, Set<String> candidatePaths) throws IOException {
+        final File workTree = repository.getWorkTree();
+        final int identLength = GitIndexFile.readVarint(data);
+        final byte[] ident = new byte[identLength];
+        data.get(ident);
+        if (!new String(ident, StandardCharsets.UTF_8).startsWith("Location " + workTree.getAbsolutePath() + ",")) {
+            // untracked cache belongs to another working tree location
+            return false;
+        }
+        // stat data of info/exclude and core.excludesFile, dir flags
+        data.position(data.position() + 2 * STAT_DATA_LENGTH + 4);
+        // exclude files are compared by content, like git does if their stat data changed
+        final ObjectId infoExcludeId = readObjectId(data);
+        final ObjectId excludesFileId = readObjectId(data);
+        if (!isExcludeFileUnchanged(new File(repository.getDirectory(), Constants.INFO_EXCLUDE), infoExcludeId)
+                || !isExcludeFileUnchanged(excludesFile(repository), excludesFileId)) {
+            return false;
+        }
+        final String excludePerDirectoryFileName = GitIndexFile.readNulTerminatedString(data);
+        final int directoryCount = GitIndexFile.readVarint(data);
+        if (directoryCount == 0) {
+            return false;
+        }
+
+        // directory blocks in depth first order
+        final List<String> directoryPaths = new ArrayList<>(directoryCount);
+        final List<List<String>> untrackedPaths = new ArrayList<>(directoryCount);
+        readUntrackedCacheDirectory(data, "", directoryPaths, untrackedPaths);
+
+        final BitSet validDirectories = GitIndexFile.readEwahBitmap(data);
+        if (!validDirectories.get(0)) {
+            return false;
+        }
+        GitIndexFile.readEwahBitmap(data); // check only directories
+        // directories with an exclude file, object ids follow stat data of valid directories
+        final BitSet excludeFileDirectories = GitIndexFile.readEwahBitmap(data);
+        data.position(data.position() + validDirectories.cardinality() * STAT_DATA_LENGTH);
+        for (int i = 0; i < directoryPaths.size(); i++) {
+            ObjectId directoryExcludeFileId = excludeFileDirectories.get(i) ? readObjectId(data) : ObjectId.zeroId();
+            if (validDirectories.get(i)) {
+                String directoryPath = directoryPaths.get(i);
+                File excludeFile = new File(directoryPath.isEmpty() ? workTree : new File(workTree, directoryPath), excludePerDirectoryFileName);
+                if (!isExcludeFileUnchanged(excludeFile, directoryExcludeFileId)) {
+                    // untracked files of directory may have been excluded or included since untracked cache was written
+                    return false;
+                }
+                candidatePaths.addAll(untrackedPaths.get(i));
+            } else {
+                candidatePaths.add(directoryPaths.get(i));
+            }
+        }
+        return true;
+    }
+
+    private static ObjectId readObjectId(ByteBuffer data) {
+        final byte[] objectId = new byte[Constants.OBJECT_ID_LENGTH];
+        data.get(objectId);
+        return ObjectId.fromRaw(objectId);
+    }
+
+    /**
+     * Git records the blob id of the index entry for tracked and unmodified exclude files,
+     * otherwise of file content with an appended line feed, zero id if file does not exist.
+     *
+     * @return true if <code>excludeFile</code> matches <code>recordedId</code>
+     */
+    private static boolean isExcludeFileUnchanged(File excludeFile, ObjectId recordedId) throws IOException {
+        if (!excludeFile.isFile()) {
+            return recordedId.equals(ObjectId.zeroId());
+        }
+        final byte[] content = Files.readAllBytes(excludeFile.toPath());
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            if (recordedId.equals(formatter.idFor(Constants.OBJ_BLOB, content))) {
+                return true;
+            }
+            final byte[] terminatedContent = Arrays.copyOf(content, content.length + 1);
+            terminatedContent[content.length] = '\n';
+            return recordedId.equals(formatter.idFor(Constants.OBJ_BLOB, terminatedContent));
+        }
+    }
+
+    /**
+     * @return <code>core.excludesFile</code> resolved like by git, defaults to <code>$XDG_CONFIG_HOME/git/ignore</code>
+     */
+    private static File excludesFile(Repository repository) {
+        final String excludesFile = repository.getConfig().getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+                ConfigConstants.CONFIG_KEY_EXCLUDESFILE);
+        if (excludesFile != null) {
+            if (excludesFile.startsWith("~/")) {
+                return new File(System.getProperty("user.home"), excludesFile.substring(2));
+            }
+            File file = new File(excludesFile);
+            return file.isAbsolute() ? file : new File(repository.getWorkTree(), excludesFile);
+        }
+        final String xdgConfigHome = System.getenv("XDG_CONFIG_HOME");
+        return xdgConfigHome != null && !xdgConfigHome.isEmpty()
+                ? new File(xdgConfigHome, "git/ignore")
+                : new File(System.getProperty("user.home"), ".config/git/ignore");
+    }
+
+    private static void readUntrackedCacheDirectory(ByteBuffer data, String path, List<String> directoryPaths,
+                                                    List<List<String>> untrackedPaths) {
+        final int untrackedCount = GitIndexFile.readVarint(data);
+        final int subdirectoryCount = GitIndexFile.readVarint(data);
+        final String name = GitIndexFile.readNulTerminatedString(data);
+        final String directoryPath = name.isEmpty() ? path : path + name + "/";
+        final List<String> directoryUntrackedPaths = new ArrayList<>(untrackedCount);
+        for (int i = 0; i < untrackedCount; i++) {
+            String untrackedName = GitIndexFile.readNulTerminatedString(data);
+            if (untrackedName.endsWith("/")) {
+                untrackedName = untrackedName.substring(0, untrackedName.length() - 1);
+            }
+            directoryUntrackedPaths.add(directoryPath + untrackedName);
+        }
+        directoryPaths.add(directoryPath.isEmpty() ? "" : directoryPath.substring(0, directoryPath.length() - 1));
+        untrackedPaths.add(directoryUntrackedPaths);
+        for (int i = 0; i < subdirectoryCount; i++) {
+            readUntrackedCacheDirectory(data, directoryPath, directoryPaths, untrackedPaths);
+        }
+    }
+
+    /**
+     * @return changed paths relative to working tree, or null if hook failed or did not finish within timeout
+     */
+    private static List<String> runHook(Repository repository, String hook, int hookVersion, String hookToken) throws IOException {
+        // output is written to files instead of pipes, so a hook keeping them open can not block the build beyond the timeout
+        final File outputFile = File.createTempFile("git-versioning-fsmonitor-", ".out");
+        final File errorFile = File.createTempFile("git-versioning-fsmonitor-", ".err");
+        try {
+            final Process process;
+            try {
+                // hooks are executed by shell from working tree, like git does
+                process = new ProcessBuilder("sh", "-c", hook + " \"$@\"", hook, Integer.toString(hookVersion), hookToken)
+                        .directory(repository.getWorkTree())
+                        .redirectOutput(outputFile)
+                        // hook messages are not part of build output
+                        .redirectError(errorFile)
+                        .start();
+            } catch (IOException e) {
+                // no shell available
+                return null;
+            }
+            try {
+                process.getOutputStream().close();
+                if (!process.waitFor(HOOK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    return null;
+                }
+                if (process.exitValue() != 0) {
+                    return null;
+                }
+                return parseHookOutput(Files.readAllBytes(outputFile.toPath()), hookVersion);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("fsmonitor hook interrupted");
+            } finally {
+                process.destroy();
+            }
+        } finally {
+            Files.deleteIfExists(outputFile.toPath());
+            Files.deleteIfExists(errorFile.toPath());
+        }
+    }
+
+    /**
+     * @return NUL separated paths, without new token of hook version 2, null if output is invalid
+     */
+    private static List<String> parseHookOutput(byte[] output, int hookVersion) {
+        final List<String> paths = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] == 0) {
+                paths.add(new String(output, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        if (start < output.length) {
+            paths.add(new String(output, start, output.length - start, StandardCharsets.UTF_8));
+        }
+        if (hookVersion == 2) {
+            if (paths.isEmpty()) {
+                return null;
+            }
+            // new token
+            paths.remove(0);
+        }
+        return paths;
+    }
+
+    /**
+     * @return true if index differs from HEAD, staged changes can not be detected by fsmonitor
+     */
+    private static boolean isIndexDifferent(Repository repository, ObjectId headCommit, GitIndexFile index, TreeFilter pathFilter) throws IOException {
+        final ObjectId headTree = GitStatusEngine.headTree(repository, headCommit);
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            if (headTree != null) {
+                treeWalk.addTree(headTree);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new GitIndexIterator(index));
+            treeWalk.setFilter(AndTreeFilter.create(pathFilter, TreeFilter.ANY_DIFF));
+            treeWalk.setRecursive(true);
+            return treeWalk.next();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads HEAD, tags and working tree status of a repository, see {@link me.qoomon.maven.extension.gitversioning.config.GitBackendType}.
+ */
+public interface GitBackend {
+
+    /**
+     * @param repository  repository handle
+     * @param tagPrefixes only tags starting with one of these prefixes are looked up, null if tags are not needed
+     * @return current HEAD state
+     * @throws IOException if HEAD or tags can not be read
+     */
+    HeadSnapshot readHead(PooledRepository repository, List<String> tagPrefixes) throws IOException;
+
+    /**
+     * @param repository  repository handle
+     * @param commit      commit id, e.g. of {@link HeadSnapshot#getCommit()}
+     * @param tagPrefixes only tags starting with one of these prefixes are looked up
+     * @return tags pointing to <code>commit</code>, in name order
+     * @throws IOException if tags can not be read
+     */
+    List<String> readTags(PooledRepository repository, String commit, List<String> tagPrefixes) throws IOException;
+
+    /**
+     * @param repository       repository handle
+     * @param includeUntracked whether untracked files make the working tree dirty
+     * @param paths            only files within these paths are checked, all files if empty
+     * @param parallelism      number of threads to use, if supported
+     * @return true if working tree has no changes
+     * @throws IOException if status can not be determined
+     */
+    boolean isWorkingTreeClean(PooledRepository repository, boolean includeUntracked, StatusPaths paths,
+                               int parallelism) throws IOException;
+}
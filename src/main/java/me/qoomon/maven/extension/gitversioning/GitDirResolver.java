@@ -0,0 +1,120 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Memoized git directory discovery, like <code>git rev-parse --git-dir</code>.
+ * <p>
+ * Discovery walks up from a directory until a git directory is found,
+ * all directories passed on the way are recorded, so sibling and nested module directories resolve by a single map lookup.
+ * The walk never goes up into a ceiling directory, see <code>GIT_CEILING_DIRECTORIES</code>.
+ * <p>
+ * Not thread safe.
+ */
+public class GitDirResolver {
+
+    public static final String CEILING_DIRECTORIES_ENVIRONMENT_VARIABLE_NAME = "GIT_CEILING_DIRECTORIES";
+
+    private final Set<File> ceilingDirectories;
+
+    // canonical directory -> canonical git directory, empty if there is none
+    private final Map<File, Optional<File>> gitDirs = new HashMap<>();
+
+    /**
+     * @param ceilingDirectories directories discovery does not go up into
+     */
+    public GitDirResolver(Collection<File> ceilingDirectories) {
+        Set<File> canonicalCeilingDirectories = new HashSet<>();
+        for (File ceilingDirectory : ceilingDirectories) {
+            canonicalCeilingDirectories.add(canonicalFile(ceilingDirectory));
+        }
+        this.ceilingDirectories = Collections.unmodifiableSet(canonicalCeilingDirectories);
+    }
+
+    /**
+     * @param ceilingDirectories value of <code>GIT_CEILING_DIRECTORIES</code>, path separator separated absolute paths, may be null
+     * @return ceiling directories, relative paths are ignored like by git
+     */
+    public static List<File> parseCeilingDirectories(String ceilingDirectories) {
+        List<File> directories = new ArrayList<>();
+        if (ceilingDirectories != null) {
+            for (String path : ceilingDirectories.split(File.pathSeparator)) {
+                File directory = new File(path);
+                if (!path.isEmpty() && directory.isAbsolute()) {
+                    directories.add(directory);
+                }
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * @param directory any directory within a git working tree
+     * @return canonical git directory, empty if <code>directory</code> is not within a git working tree
+     * @throws IOException if <code>directory</code> can not be resolved
+     */
+    public Optional<File> resolve(File directory) throws IOException {
+        final List<File> visitedDirectories = new ArrayList<>();
+        Optional<File> gitDir = Optional.empty();
+        File current = directory.getCanonicalFile();
+        while (current != null) {
+            Optional<File> knownGitDir = gitDirs.get(current);
+            if (knownGitDir != null) {
+                gitDir = knownGitDir;
+                break;
+            }
+            visitedDirectories.add(current);
+            gitDir = probe(current);
+            if (gitDir.isPresent()) {
+                break;
+            }
+            current = current.getParentFile();
+            if (current != null && ceilingDirectories.contains(current)) {
+                break;
+            }
+        }
+        for (File visitedDirectory : visitedDirectories) {
+            gitDirs.put(visitedDirectory, gitDir);
+        }
+        return gitDir;
+    }
+
+    /**
+     * Forget all discovered git directories.
+     */
+    public void clear() {
+        gitDirs.clear();
+    }
+
+    /**
+     * @return git directory of <code>directory</code> itself, supports <code>.git</code> files of linked work trees and submodules
+     */
+    private static Optional<File> probe(File directory) throws IOException {
+        // parent directory as ceiling limits JGit discovery to directory itself
+        final File gitDir = new FileRepositoryBuilder()
+                .addCeilingDirectory(directory.getParentFile())
+                .findGitDir(directory)
+                .getGitDir();
+        return gitDir == null ? Optional.empty() : Optional.of(gitDir.getCanonicalFile());
+    }
+
+    private static File canonicalFile(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read only view of a git index file (<code>.git/index</code>), streamed through a bounded read buffer per {@link EntryCursor}.
+ * <p>
+ * Supports index versions 2, 3 and 4. Entries are decoded one at a time by {@link EntryCursor},
+ * extensions are located on demand, see <a href="https://git-scm.com/docs/index-format">index-format</a>.
+ * Unlike {@link org.eclipse.jgit.dircache.DirCache} neither file content nor entry objects are kept on the heap.
+ * Indexes with required extensions, e.g. split index (<code>link</code>) or sparse index (<code>sdir</code>),
+ * are rejected with {@link UnsupportedExtensionException}, their entries do not reflect the full index.
+ * <p>
+ * The file is not memory mapped, a mapping is only released on garbage collection and locks the file on Windows.
+ * It is kept open until {@link #close()}. Cursors fail with {@link UncheckedIOException} on read errors,
+ * they are used by tree iterators which can not throw {@link IOException}.
+ */
+public class GitIndexFile implements Closeable {
+
+    private static final int SIGNATURE = 0x44495243; // "DIRC"
+    private static final String CACHE_TREE_EXTENSION = "TREE";
+    private static final int HEADER_LENGTH = 12;
+    private static final int HASH_LENGTH = Constants.OBJECT_ID_LENGTH;
+    // ctime, mtime, dev, ino, mode, uid, gid, size, object id, flags
+    private static final int ENTRY_FIXED_LENGTH = 62;
+
+    private static final int FLAG_ASSUME_VALID = 0x8000;
+    private static final int FLAG_EXTENDED = 0x4000;
+    private static final int FLAG_STAGE_MASK = 0x3000;
+    private static final int FLAG_NAME_MASK = 0x0FFF;
+    private static final int EXTENDED_FLAG_SKIP_WORKTREE = 0x4000;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final int length;
+    private final long lastModifiedNanos;
+    private final int version;
+    private final int entryCount;
+
+    // offset of first extension, determined on demand
+    private int extensionsOffset = -1;
+
+    // tree ids of valid cache tree entries by directory path, determined on demand
+    private Map<String, ObjectId> cacheTreeIds;
+
+    private GitIndexFile(FileChannel channel, long lastModifiedNanos) throws IOException {
+        this.channel = channel;
+        this.lastModifiedNanos = lastModifiedNanos;
+        final long size = channel.size();
+        if (size < HEADER_LENGTH + HASH_LENGTH || size > Integer.MAX_VALUE) {
+            throw new IOException("invalid index file size " + size);
+        }
+        this.length = (int) size;
+        final ByteBuffer header = readFully(0, HEADER_LENGTH);
+        if (header.getInt(0) != SIGNATURE) {
+            throw new IOException("invalid index file signature");
+        }
+        this.version = header.getInt(4);
+        if (version < 2 || version > 4) {
+            throw new IOException("unsupported index file version " + version);
+        }
+        this.entryCount = header.getInt(8);
+    }
+
+    /**
+     * @param indexFile index file
+     * @return opened index file, has to be closed
+     * @throws IOException                   if index file can not be read or has an invalid header
+     * @throws UnsupportedExtensionException if index file has a required extension
+     */
+    public static GitIndexFile open(File indexFile) throws IOException {
+        final long lastModifiedNanos = Files.getLastModifiedTime(indexFile.toPath()).to(TimeUnit.NANOSECONDS);
+        final FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+        try {
+            final GitIndexFile index = new GitIndexFile(channel, lastModifiedNanos);
+            index.checkRequiredExtensions();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Cursors must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return new cursor positioned before first entry
+     */
+    public EntryCursor entries() {
+        return new EntryCursor();
+    }
+
+    /**
+     * @param signature four letter extension signature e.g. <code>TREE</code>
+     * @return extension data, read into a buffer of extension size, or null if index has no such extension
+     * @throws IOException if index file can not be read
+     */
+    public ByteBuffer getExtension(String signature) throws IOException {
+        final int signatureValue = ByteBuffer.wrap(signature.getBytes(StandardCharsets.US_ASCII)).getInt();
+        final int end = length - HASH_LENGTH;
+        int offset = getExtensionsOffset();
+        while (offset + 8 <= end) {
+            ByteBuffer extensionHeader = readFully(offset, 8);
+            int size = extensionHeader.getInt(4);
+            if (extensionHeader.getInt(0) == signatureValue) {
+                return readFully(offset + 8, size);
+            }
+            offset += 8 + size;
+        }
+        return null;
+    }
+
+    /**
+     * Extensions with a signature not starting with <code>'A'..'Z'</code> are required,
+     * a reader not understanding them must not use the index.
+     */
+    private void checkRequiredExtensions() throws IOException {
+        final int end = length - HASH_LENGTH;
+        int offset = getExtensionsOffset();
+        while (offset + 8 <= end) {
+            ByteBuffer extensionHeader = readFully(offset, 8);
+            byte firstSignatureByte = extensionHeader.get(0);
+            if (firstSignatureByte < 'A' || firstSignatureByte > 'Z') {
+                byte[] signature = new byte[4];
+                extensionHeader.get(signature);
+                throw new UnsupportedExtensionException(new String(signature, StandardCharsets.US_ASCII));
+            }
+            offset += 8 + extensionHeader.getInt(4);
+        }
+    }
+
+    /**
+     * @param path directory path without trailing slash, empty for root directory
+     * @return tree id recorded in cache tree extension, or null if not recorded or invalidated
+     * @throws UncheckedIOException if index file can not be read
+     */
+    public synchronized ObjectId getCacheTreeId(String path) {
+        if (cacheTreeIds == null) {
+            cacheTreeIds = new HashMap<>();
+            ByteBuffer cacheTreeData;
+            try {
+                cacheTreeData = getExtension(CACHE_TREE_EXTENSION);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (cacheTreeData != null && cacheTreeData.hasRemaining()) {
+                readCacheTree(cacheTreeData, null, cacheTreeIds);
+            }
+        }
+        return cacheTreeIds.get(path);
+    }
+
+    private static void readCacheTree(ByteBuffer data, String parentPath, Map<String, ObjectId> treeIds) {
+        final String name = readNulTerminatedString(data);
+        final String path = parentPath == null ? "" : parentPath.isEmpty() ? name : parentPath + "/" + name;
+        final int entryCount = Integer.parseInt(readAsciiString(data, ' '));
+        final int subtreeCount = Integer.parseInt(readAsciiString(data, '\n'));
+        if (entryCount >= 0) {
+            byte[] treeId = new byte[HASH_LENGTH];
+            data.get(treeId);
+            treeIds.put(path, ObjectId.fromRaw(treeId));
+        }
+        for (int i = 0; i < subtreeCount; i++) {
+            readCacheTree(data, path, treeIds);
+        }
+    }
+
+    private static String readAsciiString(ByteBuffer data, char terminator) {
+        StringBuilder value = new StringBuilder();
+        char character;
+        while ((character = (char) data.get()) != terminator) {
+            value.append(character);
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return heap buffer with <code>length</code> bytes of index file from <code>offset</code>
+     */
+    private ByteBuffer readFully(int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > this.length) {
+            throw new EOFException("unexpected end of index file");
+        }
+        final ByteBuffer data = ByteBuffer.allocate(length);
+        readFully(data, offset);
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Fills <code>data</code> up to its limit with index file content from <code>offset</code>,
+     * positional reads of the same channel may run concurrently.
+     */
+    private void readFully(ByteBuffer data, int offset) throws IOException {
+        long position = offset;
+        while (data.hasRemaining()) {
+            int readLength = channel.read(data, position);
+            if (readLength < 0) {
+                throw new EOFException("unexpected end of index file");
+            }
+            position += readLength;
+        }
+    }
+
+    private int getExtensionsOffset() throws IOException {
+        if (extensionsOffset < 0) {
+            EntryCursor entryCursor = entries();
+            try {
+                while (entryCursor.next()) {
+                    // skip all entries
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            extensionsOffset = entryCursor.nextOffset;
+        }
+        return extensionsOffset;
+    }
+
+    /**
+     * Read git's variable width integer encoding, as used by index version 4 and index extensions.
+     *
+     * @param buffer buffer positioned at encoded integer
+     * @return decoded integer
+     */
+    public static int readVarint(ByteBuffer buffer) {
+        int value = buffer.get() & 0xFF;
+        int result = value & 0x7F;
+        while ((value & 0x80) != 0) {
+            value = buffer.get() & 0xFF;
+            result = ((result + 1) << 7) | (value & 0x7F);
+        }
+        return result;
+    }
+
+    /**
+     * @param buffer buffer positioned at NUL terminated string
+     * @return decoded string
+     */
+    public static String readNulTerminatedString(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = start;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(bytes);
+        buffer.get(); // NUL
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read EWAH compressed bitmap as written by git.
+     *
+     * @param buffer buffer positioned at bitmap
+     * @return decoded bitmap
+     */
+    public static BitSet readEwahBitmap(ByteBuffer buffer) {
+        final int bitCount = buffer.getInt();
+        final int wordCount = buffer.getInt();
+        final BitSet bitmap = new BitSet(bitCount);
+        int bitIndex = 0;
+        int wordIndex = 0;
+        while (wordIndex < wordCount) {
+            // running length word: running bit, 32 bit running length, 31 bit literal word count
+            long runningLengthWord = buffer.getLong();
+            wordIndex++;
+            boolean runningBit = (runningLengthWord & 1) != 0;
+            long runningLength = (runningLengthWord >>> 1) & 0xFFFFFFFFL;
+            int literalWordCount = (int) (runningLengthWord >>> 33);
+            if (runningBit) {
+                bitmap.set(bitIndex, (int) Math.min(bitCount, bitIndex + runningLength * 64));
+            }
+            bitIndex += runningLength * 64;
+            for (int i = 0; i < literalWordCount; i++) {
+                long literalWord = buffer.getLong();
+                wordIndex++;
+                for (int bit = 0; bit < 64; bit++) {
+                    if ((literalWord & (1L << bit)) != 0) {
+                        bitmap.set(bitIndex + bit);
+                    }
+                }
+                bitIndex += 64;
+            }
+        }
+        buffer.getInt(); // position of last running length word
+        return bitmap;
+    }
+
+    /**
+     * Forward only cursor over index entries, decodes one entry at a time.
+     */
+    public class EntryCursor {
+
+        private final ReadBuffer readBuffer = new ReadBuffer();
+
+        private int position = -1;
+        private int entryOffset;
+        private int nextOffset = HEADER_LENGTH;
+
+        private byte[] path = new byte[256];
+        private int pathLength = 0;
+        private int flags;
+        private int extendedFlags;
+
+        /**
+         * @return independent cursor positioned at the same entry as this cursor
+         */
+        public EntryCursor copy() {
+            EntryCursor copy = new EntryCursor();
+            copy.position = position;
+            copy.entryOffset = entryOffset;
+            copy.nextOffset = nextOffset;
+            copy.path = Arrays.copyOf(path, path.length);
+            copy.pathLength = pathLength;
+            copy.flags = flags;
+            copy.extendedFlags = extendedFlags;
+            return copy;
+        }
+
+        /**
+         * @return true if cursor moved to next entry, false if there are no more entries
+         */
+        public boolean next() {
+            if (position + 1 >= entryCount) {
+                position = entryCount;
+                return false;
+            }
+            position++;
+            entryOffset = nextOffset;
+
+            flags = readBuffer.getShort(entryOffset + 60) & 0xFFFF;
+            int pathOffset = entryOffset + ENTRY_FIXED_LENGTH;
+            extendedFlags = 0;
+            if ((flags & FLAG_EXTENDED) != 0) {
+                extendedFlags = readBuffer.getShort(pathOffset) & 0xFFFF;
+                pathOffset += 2;
+            }
+
+            if (version < 4) {
+                int nameLength = flags & FLAG_NAME_MASK;
+                if (nameLength == FLAG_NAME_MASK) {
+                    nameLength = indexOfNul(pathOffset) - pathOffset;
+                }
+                readPath(pathOffset, 0, nameLength);
+                // entry is padded with 1-8 NUL bytes to a multiple of eight bytes
+                nextOffset = entryOffset + ((pathOffset - entryOffset + nameLength + 8) & ~7);
+            } else {
+                // path is prefix compressed relative to previous entry path, see readVarint
+                int suffixOffset = pathOffset;
+                int value = readBuffer.get(suffixOffset++) & 0xFF;
+                int removeLength = value & 0x7F;
+                while ((value & 0x80) != 0) {
+                    value = readBuffer.get(suffixOffset++) & 0xFF;
+                    removeLength = ((removeLength + 1) << 7) | (value & 0x7F);
+                }
+                int suffixLength = indexOfNul(suffixOffset) - suffixOffset;
+                readPath(suffixOffset, pathLength - removeLength, suffixLength);
+                nextOffset = suffixOffset + suffixLength + 1;
+            }
+            return true;
+        }
+
+        private void readPath(int offset, int keepLength, int length) {
+            if (path.length < keepLength + length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, keepLength + length));
+            }
+            readBuffer.get(offset, path, keepLength, length);
+            pathLength = keepLength + length;
+        }
+
+        private int indexOfNul(int offset) {
+            int index = offset;
+            while (readBuffer.get(index) != 0) {
+                index++;
+            }
+            return index;
+        }
+
+        /**
+         * @return index of current entry
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return path buffer of current entry, only valid until next call of {@link #next()}
+         */
+        public byte[] getPathBuffer() {
+            return path;
+        }
+
+        public int getPathLength() {
+            return pathLength;
+        }
+
+        public String getPathString() {
+            return new String(path, 0, pathLength, StandardCharsets.UTF_8);
+        }
+
+        public int getRawMode() {
+            return readBuffer.getInt(entryOffset + 24);
+        }
+
+        public int getLength() {
+            return readBuffer.getInt(entryOffset + 36);
+        }
+
+        public long getLastModified() {
+            return (readBuffer.getInt(entryOffset + 8) & 0xFFFFFFFFL) * 1000 + readBuffer.getInt(entryOffset + 12) / 1_000_000;
+        }
+
+        /**
+         * @return true if file may have been modified within same timestamp granularity after index was written,
+         * working tree content has to be compared in this case
+         */
+        public boolean isRacilyClean() {
+            long lastModifiedNanos = (readBuffer.getInt(entryOffset + 8) & 0xFFFFFFFFL) * 1_000_000_000 + readBuffer.getInt(entryOffset + 12);
+            return lastModifiedNanos >= GitIndexFile.this.lastModifiedNanos;
+        }
+
+        /**
+         * @param destination buffer to copy raw object id of current entry to
+         * @param offset      offset within <code>destination</code>
+         */
+        public void copyRawObjectId(byte[] destination, int offset) {
+            readBuffer.get(entryOffset + 40, destination, offset, HASH_LENGTH);
+        }
+
+        public int getStage() {
+            return (flags & FLAG_STAGE_MASK) >>> 12;
+        }
+
+        public boolean isAssumeValid() {
+            return (flags & FLAG_ASSUME_VALID) != 0;
+        }
+
+        public boolean isSkipWorkTree() {
+            return (extendedFlags & EXTENDED_FLAG_SKIP_WORKTREE) != 0;
+        }
+    }
+
+    /**
+     * Window of index file content, refilled when content outside of the window is accessed.
+     * A cursor reads entries in file order, so each part of the file is read once per cursor.
+     */
+    private class ReadBuffer {
+
+        // allocated on first read, copies of a cursor may never read
+        private ByteBuffer window = ByteBuffer.allocate(0);
+        // file offset of first window byte
+        private int windowOffset;
+
+        // window index is determined before window is accessed, window may be replaced while required content is read
+
+        byte get(int offset) {
+            final int windowIndex = require(offset, 1);
+            return window.get(windowIndex);
+        }
+
+        short getShort(int offset) {
+            final int windowIndex = require(offset, 2);
+            return window.getShort(windowIndex);
+        }
+
+        int getInt(int offset) {
+            final int windowIndex = require(offset, 4);
+            return window.getInt(windowIndex);
+        }
+
+        void get(int offset, byte[] destination, int destinationOffset, int length) {
+            final int windowIndex = require(offset, length);
+            window.position(windowIndex);
+            window.get(destination, destinationOffset, length);
+        }
+
+        /**
+         * @return window index of <code>offset</code>, window contains at least <code>length</code> bytes from there
+         */
+        private int require(int offset, int length) {
+            final int windowIndex = offset - windowOffset;
+            if (windowIndex >= 0 && windowIndex + length <= window.limit()) {
+                return windowIndex;
+            }
+            if (offset < 0 || offset + length > GitIndexFile.this.length) {
+                throw new UncheckedIOException(new EOFException("unexpected end of index file"));
+            }
+            if (window.capacity() < length || window.capacity() == 0) {
+                // first read or very long path
+                window = ByteBuffer.allocate(Math.max(READ_BUFFER_SIZE, Math.max(window.capacity() * 2, length)));
+            }
+            window.clear();
+            window.limit(Math.min(window.capacity(), GitIndexFile.this.length - offset));
+            try {
+                readFully(window, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            window.flip();
+            windowOffset = offset;
+            return 0;
+        }
+    }
+
+    /**
+     * Index file has a required extension this reader does not understand, e.g. split index or sparse index.
+     */
+    public static class UnsupportedExtensionException extends IOException {
+
+        public UnsupportedExtensionException(String signature) {
+            super("unsupported required index extension '" + signature + "'");
+        }
+    }
+}
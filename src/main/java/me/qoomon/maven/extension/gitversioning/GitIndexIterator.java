@@ -0,0 +1,258 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+
+import java.util.Arrays;
+
+/**
+ * Forward only tree iterator over a {@link GitIndexFile}, replacement for {@link org.eclipse.jgit.dircache.DirCacheIterator}.
+ * <p>
+ * A subtree iterator shares the {@link GitIndexFile.EntryCursor} of its parent,
+ * so every index entry is decoded once per walk, regardless of tree depth.
+ * Subtree ids are taken from the index cache tree extension, if valid.
+ */
+public class GitIndexIterator extends AbstractTreeIterator {
+
+    private final GitIndexFile index;
+    private final GitIndexFile.EntryCursor cursor;
+    // exclusive end entry position
+    private final int endPosition;
+
+    private final byte[] idBuffer = new byte[Constants.OBJECT_ID_LENGTH];
+    private int firstPosition = -1;
+    private int entryPosition = -1;
+    private boolean subtreeIdResolved;
+    private ObjectId subtreeId;
+
+    /**
+     * @param index index file
+     */
+    public GitIndexIterator(GitIndexFile index) {
+        this(index, startCursor(index), index.getEntryCount());
+    }
+
+    private GitIndexIterator(GitIndexFile index, GitIndexFile.EntryCursor cursor, int endPosition) {
+        this.index = index;
+        this.cursor = cursor;
+        this.endPosition = endPosition;
+        parseEntry();
+        firstPosition = entryPosition;
+    }
+
+    private GitIndexIterator(GitIndexIterator parent) {
+        super(parent);
+        this.index = parent.index;
+        this.cursor = parent.cursor;
+        this.endPosition = parent.endPosition;
+        parseEntry();
+        firstPosition = entryPosition;
+    }
+
+    private static GitIndexFile.EntryCursor startCursor(GitIndexFile index) {
+        GitIndexFile.EntryCursor cursor = index.entries();
+        cursor.next();
+        return cursor;
+    }
+
+    @Override
+    public GitIndexIterator createSubtreeIterator(ObjectReader reader) {
+        if (!isSubtree()) {
+            throw new IllegalStateException("not a subtree: " + getEntryPathString());
+        }
+        return new GitIndexIterator(this);
+    }
+
+    /**
+     * @return new root iterator over index entries of current subtree only, it does not affect this iterator
+     */
+    public GitIndexIterator createRootIteratorOfSubtree() {
+        if (!isSubtree()) {
+            throw new IllegalStateException("not a subtree: " + getEntryPathString());
+        }
+        GitIndexFile.EntryCursor subtreeCursor = cursor.copy();
+        GitIndexFile.EntryCursor subtreeEndCursor = cursor.copy();
+        skipSubtree(subtreeEndCursor);
+        return new GitIndexIterator(index, subtreeCursor, Math.min(subtreeEndCursor.getPosition(), endPosition));
+    }
+
+    @Override
+    public boolean hasId() {
+        if (isSubtree()) {
+            return getSubtreeId() != null;
+        }
+        return true;
+    }
+
+    @Override
+    public byte[] idBuffer() {
+        if (isSubtree()) {
+            ObjectId treeId = getSubtreeId();
+            if (treeId == null) {
+                return zeroid;
+            }
+            treeId.copyRawTo(idBuffer, 0);
+        } else {
+            cursor.copyRawObjectId(idBuffer, 0);
+        }
+        return idBuffer;
+    }
+
+    @Override
+    public int idOffset() {
+        return 0;
+    }
+
+    @Override
+    public boolean first() {
+        return entryPosition == firstPosition;
+    }
+
+    @Override
+    public boolean eof() {
+        return entryPosition < 0;
+    }
+
+    @Override
+    public void next(int delta) {
+        while (--delta >= 0 && !eof()) {
+            if (isSubtree()) {
+                // entries of subtree may have been consumed by subtree iterator already
+                skipSubtree(cursor);
+            } else {
+                cursor.next();
+            }
+            parseEntry();
+        }
+    }
+
+    @Override
+    public void back(int delta) {
+        throw new UnsupportedOperationException("index iterator can not move backwards");
+    }
+
+    /**
+     * @return stage of current file entry
+     */
+    public int getStage() {
+        return cursor.getStage();
+    }
+
+    /**
+     * @return true if current file entry is marked as assume-valid
+     */
+    public boolean isAssumeValid() {
+        return cursor.isAssumeValid();
+    }
+
+    /**
+     * @return true if current file entry is marked as skip-worktree
+     */
+    public boolean isSkipWorkTree() {
+        return cursor.isSkipWorkTree();
+    }
+
+    /**
+     * @return true if all file entries of current subtree are marked as skip-worktree
+     */
+    public boolean isSkipWorkTreeSubtree() {
+        GitIndexFile.EntryCursor subtreeCursor = cursor.copy();
+        while (isWithinCurrentSubtree(subtreeCursor)) {
+            if (!subtreeCursor.isSkipWorkTree()) {
+                return false;
+            }
+            subtreeCursor.next();
+        }
+        return true;
+    }
+
+    /**
+     * Creates a transient {@link DirCacheEntry} of current file entry, e.g. to compare it with working tree.
+     * Racily clean entries are smudged the same way {@link org.eclipse.jgit.dircache.DirCache} does it.
+     *
+     * @return entry of current file entry
+     */
+    public DirCacheEntry getDirCacheEntry() {
+        DirCacheEntry entry = new DirCacheEntry(Arrays.copyOf(cursor.getPathBuffer(), cursor.getPathLength()), cursor.getStage());
+        entry.setFileMode(FileMode.fromBits(cursor.getRawMode()));
+        entry.setLength(cursor.isRacilyClean() ? 0 : cursor.getLength());
+        entry.setLastModified(cursor.getLastModified());
+        cursor.copyRawObjectId(idBuffer, 0);
+        entry.setObjectIdFromRaw(idBuffer, 0);
+        entry.setAssumeValid(cursor.isAssumeValid());
+        return entry;
+    }
+
+    private boolean isSubtree() {
+        return mode == FileMode.TYPE_TREE;
+    }
+
+    private ObjectId getSubtreeId() {
+        if (!subtreeIdResolved) {
+            subtreeId = index.getCacheTreeId(getEntryPathString());
+            subtreeIdResolved = true;
+        }
+        return subtreeId;
+    }
+
+    private void skipSubtree(GitIndexFile.EntryCursor subtreeCursor) {
+        while (isWithinCurrentSubtree(subtreeCursor)) {
+            subtreeCursor.next();
+        }
+    }
+
+    /**
+     * @return true if cursor is positioned at an entry within current subtree entry
+     */
+    private boolean isWithinCurrentSubtree(GitIndexFile.EntryCursor entryCursor) {
+        return isWithinRange(entryCursor)
+                && entryCursor.getPathLength() > pathLen
+                && entryCursor.getPathBuffer()[pathLen] == '/'
+                && startsWith(entryCursor, path, pathLen);
+    }
+
+    private boolean isWithinRange(GitIndexFile.EntryCursor entryCursor) {
+        int position = entryCursor.getPosition();
+        return position >= 0 && position < endPosition && position < index.getEntryCount();
+    }
+
+    private static boolean startsWith(GitIndexFile.EntryCursor entryCursor, byte[] prefix, int prefixLength) {
+        byte[] entryPath = entryCursor.getPathBuffer();
+        for (int i = prefixLength - 1; i >= 0; i--) {
+            if (entryPath[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Populates current tree entry from current cursor entry, a cursor entry within a directory yields a subtree entry.
+     */
+    private void parseEntry() {
+        subtreeIdResolved = false;
+        subtreeId = null;
+        if (!isWithinRange(cursor)
+                || cursor.getPathLength() <= pathOffset
+                || !startsWith(cursor, path, pathOffset)) {
+            entryPosition = -1;
+            return;
+        }
+        entryPosition = cursor.getPosition();
+
+        final byte[] entryPath = cursor.getPathBuffer();
+        final int entryPathLength = cursor.getPathLength();
+        int nameEnd = pathOffset;
+        while (nameEnd < entryPathLength && entryPath[nameEnd] != '/') {
+            nameEnd++;
+        }
+        ensurePathCapacity(nameEnd, pathOffset);
+        System.arraycopy(entryPath, pathOffset, path, pathOffset, nameEnd - pathOffset);
+        pathLen = nameEnd;
+        mode = nameEnd < entryPathLength ? FileMode.TYPE_TREE : cursor.getRawMode();
+    }
+}
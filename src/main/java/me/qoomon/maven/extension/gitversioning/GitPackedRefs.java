@@ -0,0 +1,240 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read only view of a git <code>packed-refs</code> file.
+ * <p>
+ * File content is read into heap instead of being memory mapped, a mapping is only released on garbage collection
+ * and would lock the file against updates by git on Windows until then.
+ * <p>
+ * Refs are looked up by binary search if the file has the <code>sorted</code> trait, as written by git since 2.x,
+ * otherwise by a linear scan. Only the records actually looked up are decoded.
+ */
+public class GitPackedRefs {
+
+    private static final String HEADER = "# pack-refs with:";
+    private static final int HEX_LENGTH = Constants.OBJECT_ID_STRING_LENGTH;
+
+    private static final GitPackedRefs EMPTY = new GitPackedRefs(ByteBuffer.allocate(0));
+
+    private final ByteBuffer buffer;
+    // offset of first record
+    private final int start;
+    private final boolean sorted;
+    // tags without peeled line are not annotated
+    private final boolean peeledTags;
+    // refs without peeled line are not annotated tags
+    private final boolean fullyPeeled;
+
+    private GitPackedRefs(ByteBuffer buffer) {
+        this.buffer = buffer;
+        String traits = "";
+        if (startsWith(buffer, 0, HEADER)) {
+            int headerEnd = lineEnd(buffer, 0);
+            traits = decode(buffer, HEADER.length(), headerEnd) + " ";
+            this.start = Math.min(headerEnd + 1, buffer.limit());
+        } else {
+            this.start = 0;
+        }
+        this.sorted = traits.contains(" sorted ");
+        this.fullyPeeled = traits.contains(" fully-peeled ");
+        this.peeledTags = fullyPeeled || traits.contains(" peeled ");
+    }
+
+    /**
+     * @param packedRefsFile packed refs file
+     * @return packed refs, empty if <code>packedRefsFile</code> does not exist
+     * @throws IOException if file can not be read
+     */
+    public static GitPackedRefs read(File packedRefsFile) throws IOException {
+        if (!packedRefsFile.isFile()) {
+            return EMPTY;
+        }
+        try {
+            return new GitPackedRefs(ByteBuffer.wrap(Files.readAllBytes(packedRefsFile.toPath())));
+        } catch (NoSuchFileException e) {
+            // deleted concurrently, e.g. by git pack-refs
+            return EMPTY;
+        }
+    }
+
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * @param name full ref name
+     * @return packed ref or null if there is none
+     */
+    public Ref find(String name) {
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (sorted) {
+            int record = lowerBound(nameBytes);
+            if (record < buffer.limit() && compareName(record, nameBytes) == 0) {
+                return decodeRef(record);
+            }
+            return null;
+        }
+        for (int record = start; record < buffer.limit(); record = nextRecord(record)) {
+            if (compareName(record, nameBytes) == 0) {
+                return decodeRef(record);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param prefix ref name prefix
+     * @return packed refs starting with <code>prefix</code>, in name order
+     */
+    public List<Ref> getRefsByPrefix(String prefix) {
+        final byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        final List<Ref> refs = new ArrayList<>();
+        if (sorted) {
+            for (int record = lowerBound(prefixBytes); record < buffer.limit(); record = nextRecord(record)) {
+                if (!nameStartsWith(record, prefixBytes)) {
+                    break;
+                }
+                refs.add(decodeRef(record));
+            }
+            return refs;
+        }
+        for (int record = start; record < buffer.limit(); record = nextRecord(record)) {
+            if (nameStartsWith(record, prefixBytes)) {
+                refs.add(decodeRef(record));
+            }
+        }
+        refs.sort(Comparator.comparing(Ref::getName));
+        return refs;
+    }
+
+    /**
+     * @return offset of first record with name greater or equal to <code>name</code>, end of buffer if there is none
+     */
+    private int lowerBound(byte[] name) {
+        int low = start;
+        int high = buffer.limit();
+        while (low < high) {
+            int record = recordStart((low + high) >>> 1);
+            if (compareName(record, name) < 0) {
+                low = nextRecord(record);
+            } else {
+                high = record;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return offset of record containing <code>offset</code>, peeled lines belong to preceding record
+     */
+    private int recordStart(int offset) {
+        int lineStart = lineStart(offset);
+        if (lineStart > start && buffer.get(lineStart) == '^') {
+            lineStart = lineStart(lineStart - 1);
+        }
+        return lineStart;
+    }
+
+    private int lineStart(int offset) {
+        while (offset > start && buffer.get(offset - 1) != '\n') {
+            offset--;
+        }
+        return offset;
+    }
+
+    private int nextRecord(int record) {
+        int next = lineEnd(buffer, record) + 1;
+        if (next < buffer.limit() && buffer.get(next) == '^') {
+            next = lineEnd(buffer, next) + 1;
+        }
+        return Math.min(next, buffer.limit());
+    }
+
+    private int compareName(int record, byte[] name) {
+        final int nameStart = record + HEX_LENGTH + 1;
+        final int nameEnd = lineEnd(buffer, record);
+        for (int i = 0; nameStart + i < nameEnd && i < name.length; i++) {
+            int diff = (buffer.get(nameStart + i) & 0xFF) - (name[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (nameEnd - nameStart) - name.length;
+    }
+
+    private boolean nameStartsWith(int record, byte[] prefix) {
+        final int nameStart = record + HEX_LENGTH + 1;
+        if (lineEnd(buffer, record) - nameStart < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(nameStart + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Ref decodeRef(int record) {
+        final int lineEnd = lineEnd(buffer, record);
+        final ObjectId objectId = decodeObjectId(record);
+        final String name = decode(buffer, record + HEX_LENGTH + 1, lineEnd);
+        if (lineEnd + 1 < buffer.limit() && buffer.get(lineEnd + 1) == '^') {
+            return new ObjectIdRef.PeeledTag(Ref.Storage.PACKED, name, objectId, decodeObjectId(lineEnd + 2));
+        }
+        if (fullyPeeled || (peeledTags && name.startsWith(Constants.R_TAGS))) {
+            return new ObjectIdRef.PeeledNonTag(Ref.Storage.PACKED, name, objectId);
+        }
+        return new ObjectIdRef.Unpeeled(Ref.Storage.PACKED, name, objectId);
+    }
+
+    private ObjectId decodeObjectId(int offset) {
+        byte[] hex = new byte[HEX_LENGTH];
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            hex[i] = buffer.get(offset + i);
+        }
+        return ObjectId.fromString(hex, 0);
+    }
+
+    private static int lineEnd(ByteBuffer buffer, int offset) {
+        while (offset < buffer.limit() && buffer.get(offset) != '\n') {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int offset, String text) {
+        if (buffer.limit() - offset < text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer.get(offset + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,190 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content addressed cache of peeled tag refs, object id of a tag ref to the object id it finally points to,
+ * stored within git directory at <code>.git/git-versioning/peeled-tags</code>.
+ * <p>
+ * Objects are immutable, so entries never get invalid. Size is bounded by {@link #MAX_ENTRIES},
+ * entries used most recently are kept on {@link #save()}.
+ * <p>
+ * Not thread safe.
+ */
+public class GitPeeledTagCache {
+
+    static final int MAX_ENTRIES = 100_000;
+
+    private static final int MAGIC = 0x50544301; // 'PTC' version 1
+
+    private final Path cacheFile;
+    private final ObjectIdOwnerMap<PeeledTag> peeledTags = new ObjectIdOwnerMap<>();
+    /**
+     * in order of last use, most recent first
+     */
+    private final List<PeeledTag> usedPeeledTags = new ArrayList<>();
+    /**
+     * in stored order, most recent first
+     */
+    private final List<PeeledTag> storedPeeledTags = new ArrayList<>();
+    private boolean modified = false;
+
+    private GitPeeledTagCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * @param gitDir git directory, common directory for linked work trees
+     * @return stored cache of <code>gitDir</code>, empty cache if there is none or it is unreadable
+     */
+    public static GitPeeledTagCache load(File gitDir) {
+        GitPeeledTagCache cache = new GitPeeledTagCache(new File(gitDir, "git-versioning/peeled-tags").toPath());
+        cache.read();
+        return cache;
+    }
+
+    /**
+     * @param objectId object id of a tag ref
+     * @return the object id <code>objectId</code> finally points to, or null if unknown
+     */
+    public ObjectId get(AnyObjectId objectId) {
+        PeeledTag peeledTag = peeledTags.get(objectId);
+        if (peeledTag == null) {
+            return null;
+        }
+        markUsed(peeledTag);
+        return peeledTag.peeledObjectId;
+    }
+
+    /**
+     * @param objectId       object id of a tag ref
+     * @param peeledObjectId the object id <code>objectId</code> finally points to
+     */
+    public void put(AnyObjectId objectId, ObjectId peeledObjectId) {
+        PeeledTag peeledTag = peeledTags.get(objectId);
+        if (peeledTag == null) {
+            peeledTag = new PeeledTag(objectId, peeledObjectId);
+            peeledTags.add(peeledTag);
+            modified = true;
+        }
+        markUsed(peeledTag);
+    }
+
+    /**
+     * @return number of cached tags
+     */
+    public int size() {
+        return peeledTags.size();
+    }
+
+    /**
+     * Writes cache if entries were added or used in a different order, most recently used entries first.
+     *
+     * @throws IOException if cache file can not be written
+     */
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        Files.createDirectories(cacheFile.getParent());
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+                List<PeeledTag> entries = new ArrayList<>(usedPeeledTags);
+                for (PeeledTag peeledTag : storedPeeledTags) {
+                    if (!peeledTag.used) {
+                        entries.add(peeledTag);
+                    }
+                }
+                int count = Math.min(entries.size(), MAX_ENTRIES);
+                output.writeInt(MAGIC);
+                output.writeInt(count);
+                byte[] buffer = new byte[Constants.OBJECT_ID_LENGTH];
+                for (PeeledTag peeledTag : entries.subList(0, count)) {
+                    peeledTag.copyRawTo(buffer, 0);
+                    output.write(buffer);
+                    peeledTag.peeledObjectId.copyRawTo(buffer, 0);
+                    output.write(buffer);
+                }
+            }
+            // concurrent builds may write at the same time, readers never see partial content
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        modified = false;
+    }
+
+    private void markUsed(PeeledTag peeledTag) {
+        if (!peeledTag.used) {
+            peeledTag.used = true;
+            // stored order changes unless entries are used in stored order
+            if (usedPeeledTags.size() >= storedPeeledTags.size() || storedPeeledTags.get(usedPeeledTags.size()) != peeledTag) {
+                modified = true;
+            }
+            usedPeeledTags.add(peeledTag);
+        }
+    }
+
+    private void read() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try (InputStream inputStream = Files.newInputStream(cacheFile);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+            if (input.readInt() != MAGIC) {
+                return;
+            }
+            int count = input.readInt();
+            if (count < 0 || count > MAX_ENTRIES) {
+                // corrupt, cache starts empty
+                return;
+            }
+            byte[] buffer = new byte[Constants.OBJECT_ID_LENGTH];
+            List<PeeledTag> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                input.readFully(buffer);
+                ObjectId objectId = ObjectId.fromRaw(buffer);
+                input.readFully(buffer);
+                entries.add(new PeeledTag(objectId, ObjectId.fromRaw(buffer)));
+            }
+            for (PeeledTag peeledTag : entries) {
+                if (peeledTags.get(peeledTag) == null) {
+                    peeledTags.add(peeledTag);
+                    storedPeeledTags.add(peeledTag);
+                }
+            }
+        } catch (IOException e) {
+            // unreadable or truncated, cache starts empty
+        }
+    }
+
+    private static class PeeledTag extends ObjectIdOwnerMap.Entry {
+
+        private final ObjectId peeledObjectId;
+        private boolean used = false;
+
+        PeeledTag(AnyObjectId objectId, ObjectId peeledObjectId) {
+            super(objectId);
+            this.peeledObjectId = peeledObjectId;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.SymbolicRef;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Minimal ref backend reading <code>HEAD</code>, loose refs and <code>packed-refs</code> directly from git directory.
+ * <p>
+ * Unlike {@link org.eclipse.jgit.lib.Repository} no config is loaded and no object database is opened,
+ * refs needing an object read to be peeled are returned unpeeled.
+ * Linked work trees are supported, <code>HEAD</code> is read from git directory, all other refs from common directory.
+ * <p>
+ * In snapshot mode every ref file and ref directory is read at most once, later changes are not seen.
+ * Meant for network file systems, where each read is a round trip and JGit's racy clean detection of recently modified files
+ * would read the same files again and again.
+ * <p>
+ * Thread safe.
+ */
+public class GitRefFiles {
+
+    private static final String SYMBOLIC_REF_PREFIX = "ref: ";
+    private static final int MAX_SYMBOLIC_REF_DEPTH = 5;
+
+    private final File gitDir;
+    private final File commonDir;
+    private final FileReader fileReader;
+
+    // loose ref name -> trimmed content, empty if ref file is missing, null if snapshot mode is disabled
+    private final Map<String, Optional<String>> looseRefSnapshot;
+    // ref directory -> loose ref names within, null if snapshot mode is disabled
+    private final Map<Path, List<String>> looseRefNamesSnapshot;
+
+    // read on first access
+    private GitPackedRefs packedRefs;
+
+    private GitRefFiles(File gitDir, File commonDir, boolean snapshot, FileReader fileReader) {
+        this.gitDir = gitDir;
+        this.commonDir = commonDir;
+        this.fileReader = fileReader;
+        this.looseRefSnapshot = snapshot ? new ConcurrentHashMap<>() : null;
+        this.looseRefNamesSnapshot = snapshot ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * @param gitDir git directory
+     * @return refs of <code>gitDir</code>
+     * @throws IOException if <code>commondir</code> file can not be read
+     */
+    public static GitRefFiles open(File gitDir) throws IOException {
+        return open(gitDir, false);
+    }
+
+    /**
+     * @param gitDir   git directory
+     * @param snapshot whether every ref file is read at most once
+     * @return refs of <code>gitDir</code>
+     * @throws IOException if <code>commondir</code> file can not be read
+     */
+    public static GitRefFiles open(File gitDir, boolean snapshot) throws IOException {
+        return open(gitDir, snapshot, Files::readAllBytes);
+    }
+
+    static GitRefFiles open(File gitDir, boolean snapshot, FileReader fileReader) throws IOException {
+        File commonDir = gitDir;
+        final File commonDirFile = new File(gitDir, "commondir");
+        if (commonDirFile.isFile()) {
+            String path = new String(fileReader.read(commonDirFile.toPath()), StandardCharsets.UTF_8).trim();
+            commonDir = (new File(path).isAbsolute() ? new File(path) : new File(gitDir, path)).toPath().normalize().toFile();
+        }
+        return new GitRefFiles(gitDir, commonDir, snapshot, fileReader);
+    }
+
+    public File getGitDir() {
+        return gitDir;
+    }
+
+    /**
+     * @return directory of refs and objects shared by all work trees
+     */
+    public File getCommonDir() {
+        return commonDir;
+    }
+
+    /**
+     * @return HEAD ref, a {@link SymbolicRef} if a branch is checked out,
+     * object id of HEAD is null if there are no commits yet
+     * @throws IOException if HEAD can not be read
+     */
+    public Ref readHead() throws IOException {
+        Ref head = exactRef(Constants.HEAD);
+        if (head == null) {
+            throw new IOException("missing " + Constants.HEAD + " in " + gitDir);
+        }
+        return head;
+    }
+
+    /**
+     * @param name full ref name
+     * @return ref, symbolic refs are resolved, null if ref does not exist
+     * @throws IOException if ref files can not be read
+     */
+    public Ref exactRef(String name) throws IOException {
+        return exactRef(name, 0);
+    }
+
+    private Ref exactRef(String name, int depth) throws IOException {
+        final String content = readLooseRef(name);
+        if (content == null) {
+            return getPackedRefs().find(name);
+        }
+        return parseLooseRef(name, content, depth);
+    }
+
+    /**
+     * @param prefix ref name prefix, e.g. <code>refs/tags/</code>
+     * @return refs starting with <code>prefix</code>, loose refs take precedence over packed refs, in name order
+     * @throws IOException if ref files can not be read
+     */
+    public List<Ref> getRefsByPrefix(String prefix) throws IOException {
+        final SortedMap<String, Ref> refs = new TreeMap<>();
+        for (Ref ref : getPackedRefs().getRefsByPrefix(prefix)) {
+            refs.put(ref.getName(), ref);
+        }
+
+        final Path baseDirectory = commonDir.toPath().normalize();
+        final Path prefixDirectory = baseDirectory.resolve(prefix.substring(0, prefix.lastIndexOf('/') + 1)).normalize();
+        if (prefixDirectory.startsWith(baseDirectory)) {
+            for (String name : listLooseRefNames(baseDirectory, prefixDirectory)) {
+                if (!name.startsWith(prefix)) {
+                    continue;
+                }
+                String content = readLooseRef(name);
+                if (content != null) {
+                    refs.put(name, parseLooseRef(name, content, 0));
+                }
+            }
+        }
+        return new ArrayList<>(refs.values());
+    }
+
+    /**
+     * @return <code>packed-refs</code>, read once
+     * @throws IOException if <code>packed-refs</code> can not be read
+     */
+    public synchronized GitPackedRefs getPackedRefs() throws IOException {
+        if (packedRefs == null) {
+            packedRefs = GitPackedRefs.read(new File(commonDir, Constants.PACKED_REFS));
+        }
+        return packedRefs;
+    }
+
+    /**
+     * @return names of all loose refs within <code>directory</code>, relative to <code>baseDirectory</code>
+     */
+    private List<String> listLooseRefNames(Path baseDirectory, Path directory) throws IOException {
+        if (looseRefNamesSnapshot != null) {
+            List<String> names = looseRefNamesSnapshot.get(directory);
+            if (names == null) {
+                names = walkLooseRefNames(baseDirectory, directory);
+                looseRefNamesSnapshot.put(directory, names);
+            }
+            return names;
+        }
+        return walkLooseRefNames(baseDirectory, directory);
+    }
+
+    private static List<String> walkLooseRefNames(Path baseDirectory, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(path -> baseDirectory.relativize(path).toString().replace(File.separatorChar, '/'))
+                    .filter(name -> !name.endsWith(".lock"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return trimmed content of loose ref file, null if there is none
+     */
+    private String readLooseRef(String name) throws IOException {
+        if (looseRefSnapshot != null) {
+            Optional<String> content = looseRefSnapshot.get(name);
+            if (content == null) {
+                content = Optional.ofNullable(readLooseRefFile(name));
+                looseRefSnapshot.put(name, content);
+            }
+            return content.orElse(null);
+        }
+        return readLooseRefFile(name);
+    }
+
+    private String readLooseRefFile(String name) throws IOException {
+        // pseudo refs like HEAD are work tree specific
+        final File refFile = new File(name.startsWith(Constants.R_REFS) ? commonDir : gitDir, name);
+        try {
+            return new String(fileReader.read(refFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // e.g. ref is a directory
+            if (!refFile.isFile()) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private Ref parseLooseRef(String name, String content, int depth) throws IOException {
+        if (content.startsWith(SYMBOLIC_REF_PREFIX)) {
+            if (depth >= MAX_SYMBOLIC_REF_DEPTH) {
+                throw new IOException("symbolic ref nesting too deep " + name);
+            }
+            final String targetName = content.substring(SYMBOLIC_REF_PREFIX.length()).trim();
+            Ref target = exactRef(targetName, depth + 1);
+            if (target == null) {
+                // e.g. branch without commits yet
+                target = new ObjectIdRef.Unpeeled(Ref.Storage.NEW, targetName, null);
+            }
+            return new SymbolicRef(name, target);
+        }
+        if (content.length() < Constants.OBJECT_ID_STRING_LENGTH || !ObjectId.isId(content.substring(0, Constants.OBJECT_ID_STRING_LENGTH))) {
+            throw new IOException("invalid ref " + name + " - " + content);
+        }
+        return new ObjectIdRef.Unpeeled(Ref.Storage.LOOSE, name, ObjectId.fromString(content.substring(0, Constants.OBJECT_ID_STRING_LENGTH)));
+    }
+
+    /**
+     * Reads whole files, replaceable for tests.
+     */
+    interface FileReader {
+
+        byte[] read(Path file) throws IOException;
+    }
+}
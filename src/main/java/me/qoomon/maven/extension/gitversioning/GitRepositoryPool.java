@@ -0,0 +1,247 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitBackendType;
+import me.qoomon.maven.extension.gitversioning.config.StatusScope;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Session wide pool of git repositories, keyed by git directory.
+ * <p>
+ * Every repository is opened once per session and closed at session end by {@link VersioningLifecycleParticipant}.
+ * The working tree status of a repository is computed at most once per session on a background thread.
+ * <p>
+ * The pool outlives sessions in a long running JVM, e.g. a Maven daemon,
+ * so at session end all session state is dropped and the JGit window cache is shrunk to its idle limit.
+ */
+@Component(role = GitRepositoryPool.class, instantiationStrategy = "singleton")
+public class GitRepositoryPool {
+
+    private final Logger logger;
+
+    private final Map<File, PooledRepository> repositories = new LinkedHashMap<>();
+
+    private final GitDirResolver gitDirResolver = new GitDirResolver(GitDirResolver.parseCeilingDirectories(
+            System.getenv(GitDirResolver.CEILING_DIRECTORIES_ENVIRONMENT_VARIABLE_NAME)));
+
+    private final ExecutorService statusExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "git-versioning-status");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // description of window cache config installed by this pool, null if JGit defaults are used
+    private String installedWindowCacheConfig;
+    // window cache config of current session, null for JGit defaults
+    private WindowCacheConfig sessionWindowCacheConfig;
+    private Long windowCacheIdleLimit;
+
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+    private final GitBackend jGitBackend;
+    private final GitBackend nativeBackend = new NativeGitBackend();
+
+    @Inject
+    public GitRepositoryPool(Logger logger) {
+        this.logger = logger;
+        this.jGitBackend = new JGitBackend(logger);
+    }
+
+    /**
+     * @param directory     any directory within a git working tree
+     * @param configuration git config scope, file system mode and shared cache, applied if repository is opened by this call
+     * @return shared repository handle, must not be closed by caller
+     * @throws IOException if <code>directory</code> is not within a git working tree
+     */
+    public synchronized PooledRepository acquire(File directory, VersioningConfiguration configuration) throws IOException {
+        File gitDir = gitDirResolver.resolve(directory)
+                .orElseThrow(() -> new IOException("no git repository found for " + directory));
+
+        PooledRepository pooledRepository = repositories.get(gitDir);
+        if (pooledRepository != null) {
+            pooledRepository.markReused();
+            return pooledRepository;
+        }
+
+        logger.debug("open git repository " + gitDir);
+        final GitSharedCache sharedCache = configuration.getSharedCacheDirectory() != null
+                ? new GitSharedCache(configuration.getSharedCacheDirectory(), configuration.getSharedCacheMaxSize())
+                : null;
+        pooledRepository = new PooledRepository(gitDir, directory, configuration.getGitConfigScope(), configuration.isNetworkFileSystem(),
+                sharedCache);
+        repositories.put(gitDir, pooledRepository);
+        return pooledRepository;
+    }
+
+    /**
+     * Starts working tree status computation of <code>pooledRepository</code>, if not already started.
+     * A warning is logged as soon as the working tree turns out to be not clean.
+     *
+     * @param pooledRepository repository handle of this pool
+     * @param configuration    status scope and parallelism, working tree is considered clean for {@link StatusScope#NONE}
+     * @param paths            paths of reactor projects, only files within these paths are checked
+     * @return future of working tree clean flag, cancelling it interrupts status computation
+     */
+    public synchronized CompletableFuture<Boolean> workingTreeClean(PooledRepository pooledRepository, VersioningConfiguration configuration,
+                                                                    StatusPaths paths) {
+        if (pooledRepository.getWorkingTreeClean() == null) {
+            final File gitDir = pooledRepository.getDirectory();
+            final StatusScope statusScope = configuration.getStatusScope();
+            if (statusScope == StatusScope.NONE) {
+                logger.debug("skip git status - " + gitDir);
+                pooledRepository.setWorkingTreeClean(CompletableFuture.completedFuture(true), null);
+                return pooledRepository.getWorkingTreeClean();
+            }
+            final StatusPaths statusPaths = paths.copy();
+            final GitBackend backend = getBackend(configuration.getBackendType());
+            final CompletableFuture<Boolean> workingTreeClean = new CompletableFuture<>();
+            final CountDownLatch statusFinished = new CountDownLatch(1);
+            // claimed either by status task or by cancellation before task has started, a cancelled task never runs
+            final AtomicBoolean statusStarted = new AtomicBoolean();
+            final Future<?> statusTask = statusExecutor.submit(() -> {
+                if (!statusStarted.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    workingTreeClean.complete(backend.isWorkingTreeClean(pooledRepository, statusScope == StatusScope.FULL,
+                            statusPaths, configuration.getStatusParallelism()));
+                } catch (Throwable e) {
+                    // future must complete in any case, it is awaited by model processing
+                    workingTreeClean.completeExceptionally(e);
+                } finally {
+                    statusFinished.countDown();
+                }
+            });
+            workingTreeClean.whenComplete((clean, error) -> {
+                if (error instanceof CancellationException) {
+                    // e.g. status exceeded its time budget
+                    if (statusStarted.compareAndSet(false, true)) {
+                        statusFinished.countDown();
+                    }
+                    statusTask.cancel(true);
+                } else if (error != null) {
+                    logger.warn("Git working tree status could not be determined " + gitDir, error);
+                } else if (!clean) {
+                    logger.warn("Git working tree is not clean " + gitDir);
+                }
+            });
+            pooledRepository.setWorkingTreeClean(workingTreeClean, statusFinished);
+        }
+        return pooledRepository.getWorkingTreeClean();
+    }
+
+    /**
+     * Installs <code>windowCacheConfig</code> as JVM wide JGit window cache config, unless it is installed already.
+     * Reconfiguring the window cache drops all cached pack windows, so an unchanged config is not installed again.
+     *
+     * @param windowCacheConfig window cache config, null to keep current config,
+     *                          respectively to restore JGit defaults after idle config of previous session
+     * @param idleLimit         maximum bytes of cached pack file windows after session end, null to keep limit of session
+     */
+    public synchronized void configureWindowCache(WindowCacheConfig windowCacheConfig, Long idleLimit) {
+        sessionWindowCacheConfig = windowCacheConfig;
+        windowCacheIdleLimit = idleLimit;
+        if (windowCacheConfig != null || installedWindowCacheConfig != null) {
+            installWindowCache(windowCacheConfig != null ? windowCacheConfig : new WindowCacheConfig(), false);
+        }
+    }
+
+    /**
+     * @param listener called on {@link #close()}, e.g. to reset session state of other components
+     */
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * @param backendType backend type
+     * @return shared backend instance of <code>backendType</code>
+     */
+    public GitBackend getBackend(GitBackendType backendType) {
+        switch (backendType) {
+            case NATIVE:
+                return nativeBackend;
+            case JGIT:
+            default:
+                return jGitBackend;
+        }
+    }
+
+    /**
+     * Close all pooled repositories, forget discovered git directories and release JGit window cache.
+     */
+    public synchronized void close() {
+        boolean windowCacheUsed = installedWindowCacheConfig != null;
+        for (Map.Entry<File, PooledRepository> entry : repositories.entrySet()) {
+            logger.debug("close git repository " + entry.getKey() + " - reused " + entry.getValue().getReuseCount() + " times"
+                    + (entry.getValue().isRepositoryOpen() ? "" : " - refs only"));
+            windowCacheUsed |= entry.getValue().isRepositoryOpen();
+            entry.getValue().close();
+        }
+        repositories.clear();
+        gitDirResolver.clear();
+
+        if (windowCacheUsed) {
+            // reconfiguration drops all cached pack windows and closes pack files,
+            // delta base caches belong to object readers and are already released
+            installWindowCache(idleWindowCacheConfig(), true);
+        }
+        for (Runnable listener : closeListeners) {
+            listener.run();
+        }
+    }
+
+    private WindowCacheConfig idleWindowCacheConfig() {
+        final WindowCacheConfig sessionConfig = sessionWindowCacheConfig != null ? sessionWindowCacheConfig : new WindowCacheConfig();
+        final WindowCacheConfig idleConfig = new WindowCacheConfig();
+        idleConfig.setPackedGitMMAP(sessionConfig.isPackedGitMMAP());
+        idleConfig.setPackedGitWindowSize(sessionConfig.getPackedGitWindowSize());
+        idleConfig.setPackedGitLimit(sessionConfig.getPackedGitLimit());
+        idleConfig.setPackedGitOpenFiles(sessionConfig.getPackedGitOpenFiles());
+        idleConfig.setDeltaBaseCacheLimit(sessionConfig.getDeltaBaseCacheLimit());
+        idleConfig.setStreamFileThreshold(sessionConfig.getStreamFileThreshold());
+        if (windowCacheIdleLimit != null) {
+            // window cache needs room for at least one window
+            idleConfig.setPackedGitLimit(Math.max(windowCacheIdleLimit, idleConfig.getPackedGitWindowSize()));
+            idleConfig.setDeltaBaseCacheLimit((int) Math.min(windowCacheIdleLimit, idleConfig.getDeltaBaseCacheLimit()));
+        }
+        return idleConfig;
+    }
+
+    /**
+     * @param force install even if config is unchanged, e.g. to drop cached pack windows
+     */
+    private void installWindowCache(WindowCacheConfig windowCacheConfig, boolean force) {
+        final String description = describe(windowCacheConfig);
+        if (force || !description.equals(installedWindowCacheConfig)) {
+            logger.debug("install JGit window cache config - " + description);
+            windowCacheConfig.install();
+            installedWindowCacheConfig = description;
+        }
+    }
+
+    private static String describe(WindowCacheConfig windowCacheConfig) {
+        return "packedGitMMAP=" + windowCacheConfig.isPackedGitMMAP()
+                + ", packedGitWindowSize=" + windowCacheConfig.getPackedGitWindowSize()
+                + ", packedGitLimit=" + windowCacheConfig.getPackedGitLimit()
+                + ", packedGitOpenFiles=" + windowCacheConfig.getPackedGitOpenFiles()
+                + ", deltaBaseCacheLimit=" + windowCacheConfig.getDeltaBaseCacheLimit();
+    }
+}
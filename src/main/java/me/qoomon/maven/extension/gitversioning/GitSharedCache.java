@@ -0,0 +1,185 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed cache shared by all builds of a user, e.g. all clones and workspaces of a repository on a CI agent,
+ * stored at <code>~/.m2/git-versioning-cache</code> by default.
+ * <p>
+ * Every entry is a file <code>&lt;namespace&gt;/&lt;key&gt;</code>, keys are hashes of everything the content depends on,
+ * so entries never get invalid. Size is bounded by evicting least recently used entries after each write,
+ * modification time of an entry is its last use.
+ * <p>
+ * Entries are written to a temporary file and moved in place, readers never see partial content and need no lock.
+ * Eviction holds an exclusive lock on <code>lock</code> file, so concurrent builds on the same machine never evict at the same time.
+ * <p>
+ * Thread safe.
+ */
+public class GitSharedCache {
+
+    private static final String LOCK_FILE_NAME = "lock";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    // temporary files of crashed builds are deleted on eviction
+    private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // file locks are held by the JVM, threads of the same JVM have to be serialized in addition
+    private static final Object EVICTION_MONITOR = new Object();
+
+    private final Path directory;
+    private final long maxSize;
+
+    /**
+     * @param directory cache directory, created on first write
+     * @param maxSize   maximum bytes of all entries
+     */
+    public GitSharedCache(File directory, long maxSize) {
+        this.directory = directory.toPath();
+        this.maxSize = maxSize;
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    /**
+     * @param namespace kind of entry, e.g. <code>version-context</code>
+     * @param key       hash of everything the content depends on
+     * @return content of entry, null if there is none or it can not be read
+     */
+    public byte[] get(String namespace, String key) {
+        final Path entryFile = entryFile(namespace, key);
+        try {
+            final byte[] content = Files.readAllBytes(entryFile);
+            // mark as recently used
+            Files.setLastModifiedTime(entryFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return content;
+        } catch (IOException e) {
+            // e.g. missing or evicted concurrently
+            return null;
+        }
+    }
+
+    /**
+     * Failures are ignored, e.g. read only home directory, content is computed again next time.
+     *
+     * @param namespace kind of entry, e.g. <code>version-context</code>
+     * @param key       hash of everything <code>content</code> depends on
+     * @param content   content of entry
+     */
+    public void put(String namespace, String key, byte[] content) {
+        final Path entryFile = entryFile(namespace, key);
+        try {
+            Files.createDirectories(entryFile.getParent());
+            Path tempFile = Files.createTempFile(entryFile.getParent(), entryFile.getFileName().toString(), TEMP_FILE_SUFFIX);
+            try {
+                Files.write(tempFile, content);
+                // concurrent builds may write same entry at the same time, content is equal
+                Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            evict();
+        } catch (IOException | OverlappingFileLockException e) {
+            // entry is computed again next time, lock may be held by another class loader of this JVM
+        }
+    }
+
+    /**
+     * Deletes least recently used entries until size of all entries is within maximum size.
+     *
+     * @throws IOException if cache directory can not be listed or locked
+     */
+    void evict() throws IOException {
+        synchronized (EVICTION_MONITOR) {
+            try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                final long now = System.currentTimeMillis();
+                final List<Entry> entries = new ArrayList<>();
+                long size = 0;
+                for (Entry entry : listEntries()) {
+                    if (entry.file.getFileName().toString().endsWith(TEMP_FILE_SUFFIX)) {
+                        if (now - entry.lastUsed > STALE_TEMP_FILE_MILLIS) {
+                            Files.deleteIfExists(entry.file);
+                        }
+                        continue;
+                    }
+                    entries.add(entry);
+                    size += entry.size;
+                }
+                if (size <= maxSize) {
+                    return;
+                }
+                entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+                for (Entry entry : entries) {
+                    if (size <= maxSize) {
+                        break;
+                    }
+                    try {
+                        Files.deleteIfExists(entry.file);
+                        size -= entry.size;
+                    } catch (IOException e) {
+                        // e.g. entry is open by a reader on Windows, evicted next time
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Entry> listEntries() throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> namespaces = Files.list(directory)) {
+            for (Path namespace : (Iterable<Path>) namespaces::iterator) {
+                if (!Files.isDirectory(namespace)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(namespace)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                            if (attributes.isRegularFile()) {
+                                entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                            }
+                        } catch (NoSuchFileException e) {
+                            // deleted concurrently
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private Path entryFile(String namespace, String key) {
+        return directory.resolve(namespace).resolve(key);
+    }
+
+    private static class Entry {
+
+        final Path file;
+        final long size;
+        final long lastUsed;
+
+        Entry(Path file, long size, long lastUsed) {
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Short-circuiting working tree status.
+ * <p>
+ * Walks HEAD, index and working tree side by side and stops at the first difference,
+ * unlike {@link org.eclipse.jgit.api.StatusCommand} no path collections are built.
+ * Top level subtrees can optionally be compared in parallel on a {@link ForkJoinPool}.
+ * Index entries marked as skip-worktree (sparse checkout) are never compared against the working tree.
+ * The index is read through {@link GitIndexFile}, entries are decoded while walking.
+ */
+public final class GitStatusEngine {
+
+    private static final int HEAD_TREE = 0;
+    private static final int INDEX_TREE = 1;
+    private static final int WORKING_TREE = 2;
+
+    /**
+     * Equivalent to {@link org.eclipse.jgit.api.Status#isClean()},
+     * except that working trees of submodules are not inspected and skip-worktree entries are honored.
+     *
+     * @param repository       the repository
+     * @param includeUntracked if false, untracked files are neither scanned nor considered
+     * @param pathFilter       only paths matching this filter are compared, see {@link #pathFilter(Repository, Collection)}
+     * @param parallelism      number of threads, if greater than 1 top level subtrees are compared in parallel
+     * @return true if there are no staged, modified, missing, conflicting or untracked files
+     * @throws IOException if reading index, objects or working tree fails
+     */
+    public static boolean isClean(Repository repository, boolean includeUntracked, TreeFilter pathFilter, int parallelism) throws IOException {
+        return isClean(repository, repository.resolve(Constants.HEAD), includeUntracked, pathFilter, parallelism);
+    }
+
+    /**
+     * Like {@link #isClean(Repository, boolean, TreeFilter, int)}, compared against given HEAD commit,
+     * e.g. read from {@link GitRefFiles} instead of JGit's ref database.
+     *
+     * @param repository       the repository
+     * @param headCommit       HEAD commit, null if there are no commits yet
+     * @param includeUntracked if false, untracked files are neither scanned nor considered
+     * @param pathFilter       only paths matching this filter are compared, see {@link #pathFilter(Repository, Collection)}
+     * @param parallelism      number of threads, if greater than 1 top level subtrees are compared in parallel
+     * @return true if there are no staged, modified, missing, conflicting or untracked files
+     * @throws IOException if reading index, objects or working tree fails
+     */
+    public static boolean isClean(Repository repository, ObjectId headCommit, boolean includeUntracked, TreeFilter pathFilter,
+                                  int parallelism) throws IOException {
+        final ObjectId headTree = headTree(repository, headCommit);
+        try (GitIndexFile index = repository.getIndexFile().exists() ? GitIndexFile.open(repository.getIndexFile()) : null) {
+            return isClean(repository, headTree, index, includeUntracked, pathFilter, parallelism);
+        } catch (UncheckedIOException e) {
+            // index read failure within tree walk
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isClean(Repository repository, ObjectId headTree, GitIndexFile index, boolean includeUntracked,
+                                   TreeFilter pathFilter, int parallelism) throws IOException {
+        final AtomicBoolean dirty = new AtomicBoolean();
+
+        if (parallelism <= 1) {
+            return isClean(repository, headTree, indexIterator(index), includeUntracked, pathFilter, null, dirty);
+        }
+
+        // compare top level files, subtrees are compared in parallel afterwards
+        final Map<String, AbstractTreeIterator> subtrees = new LinkedHashMap<>();
+        if (!isClean(repository, headTree, indexIterator(index), includeUntracked, pathFilter, subtrees, dirty)) {
+            return false;
+        }
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<Boolean>> subtreeTasks = new ArrayList<>();
+            for (Map.Entry<String, AbstractTreeIterator> subtree : subtrees.entrySet()) {
+                TreeFilter subtreeFilter = AndTreeFilter.create(pathFilter, PathFilter.create(subtree.getKey()));
+                AbstractTreeIterator subtreeIndexIterator = subtree.getValue();
+                subtreeTasks.add(forkJoinPool.submit(() ->
+                        isClean(repository, headTree, subtreeIndexIterator, includeUntracked, subtreeFilter, null, dirty)));
+            }
+            for (ForkJoinTask<Boolean> subtreeTask : subtreeTasks) {
+                if (!subtreeTask.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("git status interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // stop remaining tasks, they must not read index or repository after they have been closed
+            dirty.set(true);
+            forkJoinPool.shutdown();
+            awaitTermination(forkJoinPool);
+        }
+    }
+
+    private static void awaitTermination(ForkJoinPool forkJoinPool) {
+        boolean interrupted = false;
+        while (!forkJoinPool.isTerminated()) {
+            try {
+                forkJoinPool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // tasks stop at their next entry anyway
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return tree of <code>headCommit</code>, null if there are no commits yet
+     */
+    static ObjectId headTree(Repository repository, ObjectId headCommit) throws IOException {
+        if (headCommit == null) {
+            return null;
+        }
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(headCommit).getTree().getId();
+        }
+    }
+
+    private static AbstractTreeIterator indexIterator(GitIndexFile index) {
+        return index != null ? new GitIndexIterator(index) : new EmptyTreeIterator();
+    }
+
+    /**
+     * @param indexIterator index iterator, limited to subtree index entries for subtree comparisons
+     * @param subtrees      if not null, subtrees are not entered but added to this map, along with their index iterators
+     * @param dirty         shared flag to stop comparison as soon as any difference has been found
+     */
+    private static boolean isClean(Repository repository, ObjectId headTree, AbstractTreeIterator indexIterator, boolean includeUntracked,
+                                   TreeFilter pathFilter, Map<String, AbstractTreeIterator> subtrees, AtomicBoolean dirty) throws IOException {
+        try (ObjectReader objectReader = repository.newObjectReader();
+             TreeWalk treeWalk = new TreeWalk(repository, objectReader)) {
+
+            if (headTree != null) {
+                treeWalk.addTree(headTree);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(indexIterator);
+            FileTreeIterator workingTreeIterator = new FileTreeIterator(repository);
+            // ignored directories may contain tracked files, untracked ignored entries are skipped below
+            workingTreeIterator.setWalkIgnoredDirectories(true);
+            treeWalk.addTree(workingTreeIterator);
+            treeWalk.setFilter(pathFilter);
+
+            while (treeWalk.next()) {
+                if (dirty.get()) {
+                    return false;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("git status interrupted");
+                }
+                if (isUntracked(treeWalk) && (!includeUntracked || isIgnored(treeWalk))) {
+                    continue;
+                }
+                if (isDifferent(treeWalk)) {
+                    dirty.set(true);
+                    return false;
+                }
+                if (treeWalk.isSubtree()) {
+                    if (isOutsideSparseCheckout(treeWalk)) {
+                        continue;
+                    }
+                    if (subtrees != null) {
+                        GitIndexIterator subtreeIndexIterator = treeWalk.getTree(INDEX_TREE, GitIndexIterator.class);
+                        subtrees.put(treeWalk.getPathString(), subtreeIndexIterator != null
+                                ? subtreeIndexIterator.createRootIteratorOfSubtree()
+                                : new EmptyTreeIterator());
+                    } else {
+                        treeWalk.enterSubtree();
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @param repository  the repository
+     * @param directories directories to compare, directories outside of working tree are ignored
+     * @return filter matching all paths within <code>directories</code>, see {@link #pathFilter(Repository, StatusPaths)}
+     * @throws IOException if directory paths can not be resolved
+     */
+    public static TreeFilter pathFilter(Repository repository, Collection<File> directories) throws IOException {
+        StatusPaths paths = new StatusPaths();
+        directories.forEach(paths::addDirectory);
+        return pathFilter(repository, paths);
+    }
+
+    /**
+     * @param repository the repository
+     * @param paths      paths to compare, directories outside of working tree are ignored
+     * @return filter matching all paths within directories and files directly within file directories of <code>paths</code>,
+     * {@link TreeFilter#ALL} if <code>paths</code> is empty, null if all <code>paths</code> are outside of working tree
+     * @throws IOException if directory paths can not be resolved
+     */
+    public static TreeFilter pathFilter(Repository repository, StatusPaths paths) throws IOException {
+        Path workTree = repository.getWorkTree().getCanonicalFile().toPath();
+        Set<String> directoryPaths = new TreeSet<>();
+        for (File directory : paths.getDirectories()) {
+            String path = relativePath(workTree, directory);
+            if (path != null && path.isEmpty()) {
+                return TreeFilter.ALL;
+            }
+            if (path != null) {
+                directoryPaths.add(path);
+            }
+        }
+        Set<String> fileDirectoryPaths = new TreeSet<>();
+        for (File directory : paths.getFileDirectories()) {
+            String path = relativePath(workTree, directory);
+            if (path != null) {
+                fileDirectoryPaths.add(path);
+            }
+        }
+        if (directoryPaths.isEmpty() && fileDirectoryPaths.isEmpty()) {
+            // nothing to compare, do not widen status to whole working tree
+            return paths.isEmpty() ? TreeFilter.ALL : null;
+        }
+        if (fileDirectoryPaths.isEmpty()) {
+            return PathFilterGroup.createFromStrings(directoryPaths);
+        }
+        return new StatusPathFilter(directoryPaths, fileDirectoryPaths);
+    }
+
+    /**
+     * @param workTree  canonical working tree directory
+     * @param directory directory
+     * @return path of <code>directory</code> relative to <code>workTree</code> with '/' separators,
+     * empty for <code>workTree</code> itself, null if outside of <code>workTree</code>
+     * @throws IOException if directory path can not be resolved
+     */
+    static String relativePath(Path workTree, File directory) throws IOException {
+        Path path = directory.getCanonicalFile().toPath();
+        if (!path.startsWith(workTree)) {
+            return null;
+        }
+        return workTree.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return true if current entry is neither part of index nor HEAD
+     */
+    private static boolean isUntracked(TreeWalk treeWalk) {
+        return treeWalk.getRawMode(INDEX_TREE) == FileMode.TYPE_MISSING
+                && treeWalk.getRawMode(HEAD_TREE) == FileMode.TYPE_MISSING;
+    }
+
+    /**
+     * @return true if current subtree is not checked out, unchanged in index and all index entries within are marked as skip-worktree
+     */
+    private static boolean isOutsideSparseCheckout(TreeWalk treeWalk) {
+        if (treeWalk.getRawMode(WORKING_TREE) != FileMode.TYPE_MISSING
+                || treeWalk.getRawMode(INDEX_TREE) == FileMode.TYPE_MISSING
+                // requires valid index tree extension
+                || !treeWalk.idEqual(HEAD_TREE, INDEX_TREE)) {
+            return false;
+        }
+        return treeWalk.getTree(INDEX_TREE, GitIndexIterator.class).isSkipWorkTreeSubtree();
+    }
+
+    private static boolean isIgnored(TreeWalk treeWalk) throws IOException {
+        return treeWalk.getTree(WORKING_TREE, WorkingTreeIterator.class).isEntryIgnored();
+    }
+
+    /**
+     * @return true if current entry differs, subtrees only differ if they are part of HEAD but not of index
+     */
+    private static boolean isDifferent(TreeWalk treeWalk) throws IOException {
+        final int headMode = treeWalk.getRawMode(HEAD_TREE);
+        final int indexMode = treeWalk.getRawMode(INDEX_TREE);
+        final int workingTreeMode = treeWalk.getRawMode(WORKING_TREE);
+
+        if (indexMode == FileMode.TYPE_MISSING) {
+            if (headMode != FileMode.TYPE_MISSING) {
+                // removed
+                return true;
+            }
+            // untracked file, untracked directories only differ if they contain untracked files
+            return !treeWalk.isSubtree();
+        }
+
+        if (treeWalk.isSubtree()) {
+            return false;
+        }
+
+        GitIndexIterator indexIterator = treeWalk.getTree(INDEX_TREE, GitIndexIterator.class);
+        if (indexIterator.getStage() != DirCacheEntry.STAGE_0) {
+            // conflicting
+            return true;
+        }
+
+        if (headMode != indexMode || !treeWalk.idEqual(HEAD_TREE, INDEX_TREE)) {
+            // added or changed
+            return true;
+        }
+
+        if (indexIterator.isSkipWorkTree()) {
+            // outside of sparse checkout, working tree is irrelevant
+            return false;
+        }
+
+        if (indexMode == FileMode.TYPE_GITLINK) {
+            // submodule with checked out commit other than recorded one
+            return workingTreeMode == FileMode.TYPE_GITLINK && !treeWalk.idEqual(INDEX_TREE, WORKING_TREE);
+        }
+
+        if (workingTreeMode == FileMode.TYPE_MISSING) {
+            // missing
+            return true;
+        }
+
+        if (indexIterator.isAssumeValid()) {
+            return false;
+        }
+
+        // modified
+        WorkingTreeIterator workingTreeIterator = treeWalk.getTree(WORKING_TREE, WorkingTreeIterator.class);
+        return workingTreeIterator.isModified(indexIterator.getDirCacheEntry(), true, treeWalk.getObjectReader());
+    }
+
+    /**
+     * Matches all paths within directories and files directly within file directories, e.g. <code>pom.xml</code> of an aggregator project.
+     */
+    private static final class StatusPathFilter extends TreeFilter {
+
+        private final byte[][] directories;
+        private final byte[][] fileDirectories;
+        // subtree depth of files directly within file directories
+        private final int[] fileDepths;
+
+        StatusPathFilter(Collection<String> directories, Collection<String> fileDirectories) {
+            this.directories = directories.stream().map(Constants::encode).toArray(byte[][]::new);
+            this.fileDirectories = fileDirectories.stream().map(Constants::encode).toArray(byte[][]::new);
+            this.fileDepths = fileDirectories.stream()
+                    .mapToInt(path -> path.isEmpty() ? 0 : path.split("/").length)
+                    .toArray();
+        }
+
+        @Override
+        public boolean include(TreeWalk walker) {
+            for (byte[] directory : directories) {
+                // within directory or parent of directory
+                if (walker.isPathMatch(directory, directory.length) <= 0) {
+                    return true;
+                }
+            }
+            for (int i = 0; i < fileDirectories.length; i++) {
+                byte[] fileDirectory = fileDirectories[i];
+                int match = fileDirectory.length == 0 ? 0 : walker.isPathMatch(fileDirectory, fileDirectory.length);
+                if (match < 0 || match == 0 && walker.getPathLength() == fileDirectory.length) {
+                    // parent of file directory or file directory itself
+                    return true;
+                }
+                if (match == 0 && walker.getDepth() == fileDepths[i] && !walker.isSubtree()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return true;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            // immutable
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "STATUS_PATHS(" + Arrays.stream(directories).map(RawParseUtils::decode).collect(Collectors.toList())
+                    + ", files of " + Arrays.stream(fileDirectories).map(RawParseUtils::decode).collect(Collectors.toList()) + ")";
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Inverted index of tags, peeled object id to tag names.
+ * <p>
+ * Built once from all <code>refs/tags/*</code>, or only those starting with given prefixes, every tag is peeled exactly once,
+ * lookups are hash map lookups afterwards.
+ * Peeled ids of a previous index are reused for unchanged tags, see {@link GitTagIndexStore}.
+ */
+public class GitTagIndex {
+
+    /**
+     * Tag prefixes matching every tag.
+     */
+    public static final List<String> ALL_TAGS = Collections.singletonList("");
+
+    private final List<Tag> tags;
+    private final ObjectIdOwnerMap<TaggedObject> taggedObjects = new ObjectIdOwnerMap<>();
+
+    GitTagIndex(List<Tag> tags) {
+        this.tags = Collections.unmodifiableList(tags);
+        for (Tag tag : tags) {
+            TaggedObject taggedObject = taggedObjects.get(tag.peeledObjectId);
+            if (taggedObject == null) {
+                taggedObject = new TaggedObject(tag.peeledObjectId);
+                taggedObjects.add(taggedObject);
+            }
+            taggedObject.tags.add(tag.name);
+        }
+    }
+
+    /**
+     * @param repository   the repository
+     * @param objectReader reader used to peel annotated tags
+     * @return index of all tags of <code>repository</code>
+     * @throws IOException if refs or tag objects can not be read
+     */
+    public static GitTagIndex build(Repository repository, ObjectReader objectReader) throws IOException {
+        return build(GitRefFiles.open(repository.getDirectory()), () -> objectReader, null, ALL_TAGS, null);
+    }
+
+    /**
+     * @param refFiles     refs of the repository
+     * @param objectReader reader used to peel annotated tags, only requested if a tag is neither peeled nor cached
+     * @param previous     previous index of <code>repository</code>, tags pointing to same object as before are not peeled again
+     * @param tagPrefixes  only tags starting with one of these prefixes are read and peeled, must not overlap
+     * @param peeledTags   consulted before tag objects are read, newly peeled tags are added, may be null
+     * @return index of matching tags of <code>repository</code>
+     * @throws IOException if refs or tag objects can not be read
+     */
+    public static GitTagIndex build(GitRefFiles refFiles, Supplier<ObjectReader> objectReader, GitTagIndex previous,
+                                    List<String> tagPrefixes, GitPeeledTagCache peeledTags) throws IOException {
+        final Map<String, Tag> previousTags = new HashMap<>();
+        if (previous != null) {
+            for (Tag tag : previous.tags) {
+                previousTags.put(tag.name, tag);
+            }
+        }
+
+        final List<Tag> tags = new ArrayList<>();
+        final Peeler peeler = new Peeler(objectReader, peeledTags);
+        try {
+            for (String tagPrefix : tagPrefixes) {
+                for (Ref ref : refFiles.getRefsByPrefix(Constants.R_TAGS + tagPrefix)) {
+                    String name = ref.getName().substring(Constants.R_TAGS.length());
+                    Tag previousTag = previousTags.get(name);
+                    if (previousTag != null && previousTag.objectId.equals(ref.getObjectId())) {
+                        tags.add(previousTag);
+                    } else {
+                        tags.add(new Tag(name, ref.getObjectId(), peeler.peel(ref)));
+                    }
+                }
+            }
+        } finally {
+            peeler.close();
+        }
+        if (tagPrefixes.size() > 1) {
+            tags.sort(Comparator.comparing(tag -> tag.name));
+        }
+        return new GitTagIndex(tags);
+    }
+
+    /**
+     * @param objectId peeled object id, usually a commit id
+     * @return names of all tags pointing to <code>objectId</code>, without <code>refs/tags/</code> prefix, in ref name order
+     */
+    public List<String> getTags(ObjectId objectId) {
+        TaggedObject taggedObject = taggedObjects.get(objectId);
+        if (taggedObject == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(taggedObject.tags);
+    }
+
+    /**
+     * @return number of distinct tagged objects
+     */
+    public int size() {
+        return taggedObjects.size();
+    }
+
+    /**
+     * @return all tags in ref name order
+     */
+    List<Tag> getAllTags() {
+        return tags;
+    }
+
+    static class Tag {
+
+        final String name;
+        final ObjectId objectId;
+        final ObjectId peeledObjectId;
+
+        /**
+         * @param name           tag name without <code>refs/tags/</code> prefix
+         * @param objectId       object id of tag ref, id of tag object for annotated tags
+         * @param peeledObjectId object id the tag finally points to
+         */
+        Tag(String name, ObjectId objectId, ObjectId peeledObjectId) {
+            this.name = name;
+            this.objectId = objectId;
+            this.peeledObjectId = peeledObjectId;
+        }
+    }
+
+    /**
+     * Peels refs, tag objects are only read if ref is not peeled yet and <code>peeledTags</code> does not know it.
+     */
+    private static class Peeler implements AutoCloseable {
+
+        private final Supplier<ObjectReader> objectReader;
+        private final GitPeeledTagCache peeledTags;
+        // created on first object read
+        private RevWalk revWalk;
+
+        Peeler(Supplier<ObjectReader> objectReader, GitPeeledTagCache peeledTags) {
+            this.objectReader = objectReader;
+            this.peeledTags = peeledTags;
+        }
+
+        ObjectId peel(Ref ref) throws IOException {
+            if (ref.isPeeled()) {
+                return ref.getPeeledObjectId() != null ? ref.getPeeledObjectId() : ref.getObjectId();
+            }
+            ObjectId peeledObjectId = peeledTags != null ? peeledTags.get(ref.getObjectId()) : null;
+            if (peeledObjectId == null) {
+                if (revWalk == null) {
+                    revWalk = new RevWalk(objectReader.get());
+                }
+                peeledObjectId = revWalk.peel(revWalk.parseAny(ref.getObjectId())).copy();
+                if (peeledTags != null) {
+                    peeledTags.put(ref.getObjectId(), peeledObjectId);
+                }
+            }
+            return peeledObjectId;
+        }
+
+        @Override
+        public void close() {
+            if (revWalk != null) {
+                revWalk.close();
+            }
+        }
+    }
+
+    private static class TaggedObject extends ObjectIdOwnerMap.Entry {
+
+        private final List<String> tags = new ArrayList<>(1);
+
+        TaggedObject(ObjectId objectId) {
+            super(objectId);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Persists {@link GitTagIndex} within git common directory, at <code>.git/git-versioning/tag-index</code>.
+ * <p>
+ * The stored index is valid as long as size and modification time of <code>packed-refs</code>
+ * and names and content of loose tag refs are unchanged, in that case no ref or object is read at all.
+ * Like git's racy index check, a stored index not written after last modification of <code>packed-refs</code> is not trusted,
+ * <code>packed-refs</code> may have been rewritten within the same timestamp granularity, see {@link #isPackedRefsRacy}.
+ * Otherwise the index is rebuilt from current tag refs, tags pointing to the same object as before are not peeled again,
+ * other tags are looked up in {@link GitPeeledTagCache} first.
+ * <p>
+ * If a {@link GitSharedCache} is given, an index built by another clone with the same tag refs is reused
+ * instead of rebuilding it, keyed by names and object ids of all matching tag refs, see {@link #tagRefsHash}.
+ */
+public final class GitTagIndexStore {
+
+    private static final String HEADER = "git-versioning-tag-index 1";
+    private static final String SHARED_CACHE_NAMESPACE = "tag-index";
+
+    /**
+     * @param refFiles     refs of the repository
+     * @param objectReader reader used to peel annotated tags, only requested if index is rebuilt and a tag is neither peeled nor cached
+     * @param tagPrefixes  only tags starting with one of these prefixes are indexed, see {@link GitTagIndex#build}
+     * @return index of matching tags of <code>repository</code>
+     * @throws IOException if refs or tag objects can not be read
+     */
+    public static GitTagIndex load(GitRefFiles refFiles, Supplier<ObjectReader> objectReader, List<String> tagPrefixes) throws IOException {
+        return load(refFiles, objectReader, tagPrefixes, null);
+    }
+
+    /**
+     * @param refFiles     refs of the repository
+     * @param objectReader reader used to peel annotated tags, only requested if index is rebuilt and a tag is neither peeled nor cached
+     * @param tagPrefixes  only tags starting with one of these prefixes are indexed, see {@link GitTagIndex#build}
+     * @param sharedCache  consulted before index is rebuilt, rebuilt index is added, may be null
+     * @return index of matching tags of <code>repository</code>
+     * @throws IOException if refs or tag objects can not be read
+     */
+    public static GitTagIndex load(GitRefFiles refFiles, Supplier<ObjectReader> objectReader, List<String> tagPrefixes,
+                                   GitSharedCache sharedCache) throws IOException {
+        final Path indexFile = indexFile(refFiles);
+        // determined before refs are read, concurrent ref updates invalidate stored index next time
+        final String refsStamp = refsStamp(refFiles, tagPrefixes);
+
+        final StoredIndex storedIndex = read(indexFile);
+        if (storedIndex != null && storedIndex.refsStamp.equals(refsStamp) && !isPackedRefsRacy(refFiles, indexFile)) {
+            return storedIndex.tagIndex;
+        }
+
+        final String sharedKey = sharedCache != null ? tagRefsHash(refFiles, tagPrefixes) : null;
+        if (sharedKey != null) {
+            final byte[] content = sharedCache.get(SHARED_CACHE_NAMESPACE, sharedKey);
+            final StoredIndex sharedIndex = content != null ? read(new ByteArrayInputStream(content)) : null;
+            if (sharedIndex != null && sharedIndex.refsStamp.equals(sharedKey)) {
+                try {
+                    write(indexFile, refsStamp, sharedIndex.tagIndex);
+                } catch (IOException e) {
+                    // e.g. read only git directory, index is loaded from shared cache next time
+                }
+                return sharedIndex.tagIndex;
+            }
+        }
+
+        final GitPeeledTagCache peeledTags = GitPeeledTagCache.load(refFiles.getCommonDir());
+        final GitTagIndex tagIndex = GitTagIndex.build(refFiles, objectReader,
+                storedIndex != null ? storedIndex.tagIndex : null, tagPrefixes, peeledTags);
+        try {
+            peeledTags.save();
+            write(indexFile, refsStamp, tagIndex);
+        } catch (IOException e) {
+            // e.g. read only git directory, index is rebuilt next time
+        }
+        if (sharedKey != null) {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            write(content, sharedKey, tagIndex);
+            sharedCache.put(SHARED_CACHE_NAMESPACE, sharedKey, content.toByteArray());
+        }
+        return tagIndex;
+    }
+
+    private static Path indexFile(GitRefFiles refFiles) {
+        return new File(refFiles.getCommonDir(), "git-versioning/tag-index").toPath();
+    }
+
+    /**
+     * @return stamp of <code>packed-refs</code> file and content of loose tag refs starting with <code>tagPrefixes</code>,
+     * changes whenever such a tag ref is added, removed or updated or prefixes change
+     */
+    static String refsStamp(GitRefFiles refFiles, List<String> tagPrefixes) throws IOException {
+        final String packedRefsStamp = packedRefsStamp(refFiles);
+
+        final MessageDigest looseRefsDigest = Constants.newMessageDigest();
+        final Path tagsDirectory = new File(refFiles.getCommonDir(), Constants.R_TAGS).toPath().normalize();
+        final SortedSet<String> looseRefNames = new TreeSet<>();
+        for (String tagPrefix : tagPrefixes) {
+            // only walk directory of prefix, e.g. refs/tags/release/ for prefix release/v
+            Path prefixDirectory = tagsDirectory.resolve(tagPrefix.substring(0, tagPrefix.lastIndexOf('/') + 1)).normalize();
+            // prefixes like ../ can not match any valid tag name
+            if (prefixDirectory.startsWith(tagsDirectory) && Files.isDirectory(prefixDirectory)) {
+                try (Stream<Path> paths = Files.walk(prefixDirectory)) {
+                    paths.filter(Files::isRegularFile)
+                            .map(path -> tagsDirectory.relativize(path).toString().replace(File.separatorChar, '/'))
+                            .filter(name -> name.startsWith(tagPrefix))
+                            .forEach(looseRefNames::add);
+                }
+            }
+        }
+        for (String looseRefName : looseRefNames) {
+            // content instead of modification time, a loose ref has constant length and may be updated within the same timestamp granularity
+            final byte[] content;
+            try {
+                content = Files.readAllBytes(tagsDirectory.resolve(looseRefName));
+            } catch (NoSuchFileException e) {
+                // deleted concurrently
+                continue;
+            }
+            looseRefsDigest.update((looseRefName + " " + content.length + "\n").getBytes(StandardCharsets.UTF_8));
+            looseRefsDigest.update(content);
+        }
+        return packedRefsStamp + " " + ObjectId.fromRaw(looseRefsDigest.digest()).name() + " " + tagPrefixes.size() + ":" + String.join(",", tagPrefixes);
+    }
+
+    /**
+     * @return hash of names and object ids of all tag refs starting with <code>tagPrefixes</code>,
+     * equal for all clones with the same tags, independent of file stamps
+     */
+    static String tagRefsHash(GitRefFiles refFiles, List<String> tagPrefixes) throws IOException {
+        final MessageDigest digest = Constants.newMessageDigest();
+        digest.update((HEADER + "\n" + tagPrefixes.size() + ":" + String.join(",", tagPrefixes) + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String tagPrefix : tagPrefixes) {
+            for (Ref ref : refFiles.getRefsByPrefix(Constants.R_TAGS + tagPrefix)) {
+                digest.update((ref.getObjectId().name() + " " + ref.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return ObjectId.fromRaw(digest.digest()).name();
+    }
+
+    /**
+     * @return size and modification time of <code>packed-refs</code> file, <code>-</code> if there is none
+     */
+    static String packedRefsStamp(GitRefFiles refFiles) {
+        final File packedRefsFile = new File(refFiles.getCommonDir(), Constants.PACKED_REFS);
+        return packedRefsFile.isFile()
+                ? packedRefsFile.lastModified() + " " + packedRefsFile.length()
+                : "-";
+    }
+
+    /**
+     * @param refFiles   refs of the repository
+     * @param storedFile file storing a result of a <code>packed-refs</code> stamp, see {@link #packedRefsStamp}
+     * @return true if <code>packed-refs</code> was modified not before <code>storedFile</code> was written,
+     * so it may have been rewritten afterwards without changing its stamp
+     */
+    static boolean isPackedRefsRacy(GitRefFiles refFiles, Path storedFile) {
+        final Path packedRefsFile = new File(refFiles.getCommonDir(), Constants.PACKED_REFS).toPath();
+        try {
+            return Files.getLastModifiedTime(packedRefsFile).compareTo(Files.getLastModifiedTime(storedFile)) >= 0;
+        } catch (NoSuchFileException e) {
+            // no packed-refs, stamp is constant
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return stored index or null if index file does not exist or is invalid
+     */
+    private static StoredIndex read(Path indexFile) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try {
+            return read(Files.newInputStream(indexFile));
+        } catch (IOException e) {
+            // unreadable, index is rebuilt
+            return null;
+        }
+    }
+
+    /**
+     * @return index read and closed from <code>inputStream</code> or null if it is invalid
+     */
+    private static StoredIndex read(InputStream inputStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            String refsStamp = reader.readLine();
+            if (refsStamp == null) {
+                return null;
+            }
+            List<GitTagIndex.Tag> tags = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // <object id> <peeled object id> <tag name>
+                tags.add(new GitTagIndex.Tag(
+                        line.substring(2 * Constants.OBJECT_ID_STRING_LENGTH + 2),
+                        ObjectId.fromString(line.substring(0, Constants.OBJECT_ID_STRING_LENGTH)),
+                        ObjectId.fromString(line.substring(Constants.OBJECT_ID_STRING_LENGTH + 1, 2 * Constants.OBJECT_ID_STRING_LENGTH + 1))));
+            }
+            return new StoredIndex(refsStamp, new GitTagIndex(tags));
+        } catch (IOException | RuntimeException e) {
+            // unreadable or corrupt, index is rebuilt
+            return null;
+        }
+    }
+
+    private static void write(Path indexFile, String refsStamp, GitTagIndex tagIndex) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+        try {
+            write(Files.newOutputStream(tempFile), refsStamp, tagIndex);
+            // concurrent builds may write at the same time, readers never see partial content
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Writes index to <code>outputStream</code> and closes it.
+     */
+    private static void write(OutputStream outputStream, String refsStamp, GitTagIndex tagIndex) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(refsStamp);
+            writer.newLine();
+            for (GitTagIndex.Tag tag : tagIndex.getAllTags()) {
+                writer.write(tag.objectId.name() + " " + tag.peeledObjectId.name() + " " + tag.name);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static class StoredIndex {
+
+        final String refsStamp;
+        final GitTagIndex tagIndex;
+
+        StoredIndex(String refsStamp, GitTagIndex tagIndex) {
+            this.refsStamp = refsStamp;
+            this.tagIndex = tagIndex;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitPhase;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.Logger;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounds the time spent in git operations, e.g. on network file systems.
+ * <p>
+ * An operation exceeding its budget is interrupted and its fallback result is used instead, a warning names the timed out phase.
+ */
+@Component(role = GitTimeBudget.class, instantiationStrategy = "singleton")
+public class GitTimeBudget {
+
+    private final Logger logger;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "git-versioning-budget");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    public GitTimeBudget(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * @param phase               git operation
+     * @param budget              maximum milliseconds to wait, null to call <code>action</code> on current thread without limit
+     * @param action              git operation, should stop on thread interruption
+     * @param fallback            result if <code>action</code> exceeds <code>budget</code>
+     * @param fallbackDescription effect of <code>fallback</code> for warning
+     * @param <T>                 result type
+     * @return result of <code>action</code> or <code>fallback</code>
+     * @throws IOException if <code>action</code> fails
+     */
+    public <T> T call(GitPhase phase, Long budget, Callable<T> action, T fallback, String fallbackDescription) throws IOException {
+        if (budget == null) {
+            return unwrap(action);
+        }
+        return await(phase, budget, executor.submit(action), fallback, fallbackDescription);
+    }
+
+    /**
+     * @param phase               git operation
+     * @param budget              maximum milliseconds to wait, null to wait without limit
+     * @param future              running git operation, cancelled if it exceeds <code>budget</code>
+     * @param fallback            result if <code>future</code> exceeds <code>budget</code>
+     * @param fallbackDescription effect of <code>fallback</code> for warning
+     * @param <T>                 result type
+     * @return result of <code>future</code> or <code>fallback</code>
+     * @throws IOException if <code>future</code> fails
+     */
+    public <T> T await(GitPhase phase, Long budget, Future<T> future, T fallback, String fallbackDescription) throws IOException {
+        try {
+            return budget == null ? future.get() : future.get(budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("git " + phase.name().toLowerCase() + " exceeded time budget of " + budget + " ms - " + fallbackDescription);
+            return fallback;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("git " + phase.name().toLowerCase() + " interrupted");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static <T> T unwrap(Callable<T> action) throws IOException {
+        try {
+            return action.call();
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static IOException rethrow(Throwable error) {
+        if (error instanceof IOException) {
+            return (IOException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return new InterruptedIOException(error.getMessage());
+        }
+        throw new RuntimeException(error);
+    }
+}
@@ -0,0 +1,85 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static me.qoomon.maven.extension.gitversioning.StringUtil.substituteText;
+
+/**
+ * Repository wide part of version resolution, identical for all modules of a git repository.
+ * <p>
+ * Only the GAV dependent placeholders <code>${version}</code> and <code>${version.release}</code> are substituted per module.
+ */
+public class GitVersionContext {
+
+    private final String commit;
+    private final String commitRefName;
+    private final String commitRefType;
+    private final VersionFormatDescription versionFormatDescription;
+    private final Map<String, String> versionDataMap;
+
+    // version of all modules, if version format does not depend on module GAV
+    private final String moduleIndependentVersion;
+
+    public GitVersionContext(String commit, String commitRefName, String commitRefType,
+                             VersionFormatDescription versionFormatDescription, Map<String, String> versionDataMap) {
+        this.commit = commit;
+        this.commitRefName = commitRefName;
+        this.commitRefType = commitRefType;
+        this.versionFormatDescription = versionFormatDescription;
+        this.versionDataMap = Collections.unmodifiableMap(new HashMap<>(versionDataMap));
+        this.moduleIndependentVersion = versionFormatDescription.versionFormat.contains("${version")
+                ? null
+                : escapeVersion(substituteText(versionFormatDescription.versionFormat, this.versionDataMap));
+    }
+
+    public String getCommit() {
+        return commit;
+    }
+
+    public String getCommitRefName() {
+        return commitRefName;
+    }
+
+    public String getCommitRefType() {
+        return commitRefType;
+    }
+
+    public VersionFormatDescription getVersionFormatDescription() {
+        return versionFormatDescription;
+    }
+
+    public Map<String, String> getVersionDataMap() {
+        return versionDataMap;
+    }
+
+    /**
+     * @param gav module GAV
+     * @return git based GAV of module
+     */
+    public GAVGit resolve(GAV gav) {
+        String version = moduleIndependentVersion;
+        if (version == null) {
+            Map<String, String> moduleVersionDataMap = new HashMap<>();
+            moduleVersionDataMap.put("version", gav.getVersion());
+            moduleVersionDataMap.put("version.release", gav.getVersion().replaceFirst("-SNAPSHOT$", ""));
+            moduleVersionDataMap.putAll(versionDataMap);
+            version = escapeVersion(substituteText(versionFormatDescription.versionFormat, moduleVersionDataMap));
+        }
+        return new GAVGit(
+                gav.getGroupId(),
+                gav.getArtifactId(),
+                version,
+                commit,
+                commitRefName,
+                commitRefType
+        );
+    }
+
+    private static String escapeVersion(String version) {
+        return version.replace("/", "-");
+    }
+}
@@ -0,0 +1,276 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.BuildProperties;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Persists the resolved {@link GitVersionContext} of a work tree, at <code>.git/git-versioning/version-context</code>.
+ * <p>
+ * The stored context is valid as long as its key is unchanged, in that case HEAD and tags are not resolved and no object is read.
+ * The key covers content of <code>HEAD</code> and its loose target ref, <code>packed-refs</code> stamp,
+ * loose tag refs stamp if tags are considered, provided branch and tag and all version formats.
+ * A context not stored after last modification of <code>packed-refs</code> is not trusted, see {@link GitTagIndexStore#isPackedRefsRacy}.
+ * Contexts depending on working tree status, i.e. using <code>${dirty}</code>, are never stored.
+ * <p>
+ * Contexts are also shared with other clones through {@link GitSharedCache}, keyed by content instead of file stamps, see {@link #sharedKey}.
+ */
+public final class GitVersionContextStore {
+
+    private static final String HEADER = "git-versioning-version-context 1";
+    private static final String DATA_PREFIX = "data.";
+    private static final String SHARED_CACHE_NAMESPACE = "version-context";
+
+    /**
+     * @param refFiles      refs of the work tree
+     * @param configuration versioning configuration
+     * @return key of current ref state and configuration, determined before refs are read for resolution
+     * @throws IOException if ref files can not be read
+     */
+    public static String key(GitRefFiles refFiles, VersioningConfiguration configuration) throws IOException {
+        final MessageDigest digest = Constants.newMessageDigest();
+        update(digest, HEADER);
+        update(digest, BuildProperties.projectVersion());
+
+        final String head = readFile(new File(refFiles.getGitDir(), Constants.HEAD));
+        if (head == null) {
+            throw new IOException("missing " + Constants.HEAD + " in " + refFiles.getGitDir());
+        }
+        update(digest, head);
+        final boolean detached = !head.startsWith("ref: ");
+        if (!detached) {
+            final String targetName = head.substring("ref: ".length()).trim();
+            final File targetFile = new File(targetName.startsWith(Constants.R_REFS) ? refFiles.getCommonDir() : refFiles.getGitDir(), targetName);
+            update(digest, String.valueOf(readFile(targetFile)));
+        }
+
+        final String providedBranch = configuration.getProvidedBranch();
+        final String providedTag = configuration.getProvidedTag();
+        update(digest, String.valueOf(providedBranch));
+        update(digest, String.valueOf(providedTag));
+        final boolean branchPresent = providedBranch != null ? !providedBranch.isEmpty() : !detached;
+        if (providedTag == null && !branchPresent) {
+            // tags are only read for detached HEAD, stamp includes packed-refs
+            update(digest, GitTagIndexStore.refsStamp(refFiles, configuration.getTagPrefixes()));
+        } else {
+            update(digest, GitTagIndexStore.packedRefsStamp(refFiles));
+        }
+
+        update(digest, configuration);
+        return ObjectId.fromRaw(digest.digest()).name();
+    }
+
+    /**
+     * Unlike {@link #key}, independent of file stamps and git directory, equal for all clones in the same ref state.
+     *
+     * @param refFiles      refs of the work tree
+     * @param configuration versioning configuration
+     * @return key of HEAD commit, HEAD branch, ids of considered tags and configuration
+     * @throws IOException if refs can not be read
+     */
+    public static String sharedKey(GitRefFiles refFiles, VersioningConfiguration configuration) throws IOException {
+        final MessageDigest digest = Constants.newMessageDigest();
+        update(digest, HEADER);
+        update(digest, BuildProperties.projectVersion());
+
+        final Ref head = refFiles.readHead();
+        final boolean detached = !head.isSymbolic();
+        update(digest, String.valueOf(head.getObjectId() != null ? head.getObjectId().name() : null));
+        update(digest, detached ? Constants.HEAD : head.getTarget().getName());
+
+        final String providedBranch = configuration.getProvidedBranch();
+        final String providedTag = configuration.getProvidedTag();
+        update(digest, String.valueOf(providedBranch));
+        update(digest, String.valueOf(providedTag));
+        final boolean branchPresent = providedBranch != null ? !providedBranch.isEmpty() : !detached;
+        if (providedTag == null && !branchPresent) {
+            update(digest, GitTagIndexStore.tagRefsHash(refFiles, configuration.getTagPrefixes()));
+        }
+
+        update(digest, configuration);
+        return ObjectId.fromRaw(digest.digest()).name();
+    }
+
+    /**
+     * @param refFiles refs of the work tree
+     * @param key      current key, see {@link #key}
+     * @return stored context or null if there is none for <code>key</code>
+     */
+    public static GitVersionContext load(GitRefFiles refFiles, String key) {
+        final Path contextFile = contextFile(refFiles);
+        if (!Files.isRegularFile(contextFile) || GitTagIndexStore.isPackedRefsRacy(refFiles, contextFile)) {
+            return null;
+        }
+        try {
+            return deserialize(Files.readAllBytes(contextFile), key);
+        } catch (IOException e) {
+            // unreadable, context is resolved again
+            return null;
+        }
+    }
+
+    /**
+     * @param sharedCache shared cache
+     * @param sharedKey   current shared key, see {@link #sharedKey}
+     * @return shared context or null if there is none for <code>sharedKey</code>
+     */
+    public static GitVersionContext load(GitSharedCache sharedCache, String sharedKey) {
+        final byte[] content = sharedCache.get(SHARED_CACHE_NAMESPACE, sharedKey);
+        return content != null ? deserialize(content, sharedKey) : null;
+    }
+
+    /**
+     * @return context or null if <code>content</code> is corrupt or stored for another key
+     */
+    private static GitVersionContext deserialize(byte[] content, String key) {
+        final Properties properties = new Properties();
+        try (InputStream inputStream = new ByteArrayInputStream(content)) {
+            properties.load(inputStream);
+        } catch (IOException | RuntimeException e) {
+            // corrupt, context is resolved again
+            return null;
+        }
+        if (!HEADER.equals(properties.getProperty("header")) || !key.equals(properties.getProperty("key"))) {
+            return null;
+        }
+        final Map<String, String> versionDataMap = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(DATA_PREFIX)) {
+                versionDataMap.put(name.substring(DATA_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        final String commit = properties.getProperty("commit");
+        final String commitRefName = properties.getProperty("commitRefName");
+        final String commitRefType = properties.getProperty("commitRefType");
+        final String pattern = properties.getProperty("pattern");
+        final String prefix = properties.getProperty("prefix");
+        final String versionFormat = properties.getProperty("versionFormat");
+        if (commit == null || commitRefName == null || commitRefType == null
+                || pattern == null || prefix == null || versionFormat == null) {
+            return null;
+        }
+        return new GitVersionContext(commit, commitRefName, commitRefType,
+                new VersionFormatDescription(pattern, prefix, versionFormat), versionDataMap);
+    }
+
+    /**
+     * Failures are ignored, e.g. read only git directory, context is resolved again next time.
+     *
+     * @param refFiles       refs of the work tree
+     * @param key            key determined before <code>versionContext</code> was resolved, see {@link #key}
+     * @param versionContext resolved context, must not depend on working tree status
+     */
+    public static void save(GitRefFiles refFiles, String key, GitVersionContext versionContext) {
+        final Path contextFile = contextFile(refFiles);
+        try {
+            Files.createDirectories(contextFile.getParent());
+            Path tempFile = Files.createTempFile(contextFile.getParent(), contextFile.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, serialize(key, versionContext));
+                // concurrent builds may write at the same time, readers never see partial content
+                Files.move(tempFile, contextFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            // context is resolved again next time
+        }
+    }
+
+    /**
+     * @param sharedCache    shared cache
+     * @param sharedKey      shared key determined before <code>versionContext</code> was resolved, see {@link #sharedKey}
+     * @param versionContext resolved context, must not depend on working tree status
+     */
+    public static void save(GitSharedCache sharedCache, String sharedKey, GitVersionContext versionContext) {
+        sharedCache.put(SHARED_CACHE_NAMESPACE, sharedKey, serialize(sharedKey, versionContext));
+    }
+
+    private static byte[] serialize(String key, GitVersionContext versionContext) {
+        final VersionFormatDescription description = versionContext.getVersionFormatDescription();
+        final Properties properties = new Properties();
+        properties.setProperty("header", HEADER);
+        properties.setProperty("key", key);
+        properties.setProperty("commit", versionContext.getCommit());
+        properties.setProperty("commitRefName", versionContext.getCommitRefName());
+        properties.setProperty("commitRefType", versionContext.getCommitRefType());
+        properties.setProperty("pattern", description.pattern);
+        properties.setProperty("prefix", description.prefix != null ? description.prefix : "");
+        properties.setProperty("versionFormat", description.versionFormat);
+        for (Map.Entry<String, String> entry : versionContext.getVersionDataMap().entrySet()) {
+            properties.setProperty(DATA_PREFIX + entry.getKey(), entry.getValue());
+        }
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            properties.store(outputStream, null);
+        } catch (IOException e) {
+            // in memory stream
+            throw new RuntimeException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Path contextFile(GitRefFiles refFiles) {
+        // HEAD is work tree specific
+        return new File(refFiles.getGitDir(), "git-versioning/version-context").toPath();
+    }
+
+    /**
+     * @return file content, null if file does not exist
+     */
+    private static String readFile(File file) throws IOException {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // e.g. ref is a directory
+            if (!file.isFile()) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private static void update(MessageDigest digest, VersioningConfiguration configuration) {
+        for (VersionFormatDescription description : configuration.getBranchVersionDescriptions()) {
+            update(digest, "branch", description);
+        }
+        for (VersionFormatDescription description : configuration.getTagVersionDescriptions()) {
+            update(digest, "tag", description);
+        }
+        update(digest, "commit", configuration.getCommitVersionDescription());
+    }
+
+    private static void update(MessageDigest digest, String type, VersionFormatDescription description) {
+        update(digest, type);
+        update(digest, description.pattern);
+        update(digest, String.valueOf(description.prefix));
+        update(digest, description.versionFormat);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // length prefixed, adjacent values can not be shifted into each other
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,72 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable state of HEAD, read once per repository.
+ * <p>
+ * HEAD, its symbolic target and the commit id are read by a single ref lookup from {@link GitRefFiles},
+ * so all values are consistent even if refs are updated concurrently.
+ */
+public final class HeadSnapshot {
+
+    private final String commit;
+    private final String branch;
+    private final List<String> tags;
+
+    HeadSnapshot(String commit, String branch, List<String> tags) {
+        this.commit = commit;
+        this.branch = branch;
+        this.tags = Collections.unmodifiableList(tags);
+    }
+
+    /**
+     * @param refFiles refs of the repository
+     * @param tagIndex index to look up tags of HEAD commit, null if tags are not needed
+     * @return current HEAD state
+     * @throws IOException if HEAD can not be read
+     */
+    public static HeadSnapshot read(GitRefFiles refFiles, GitTagIndex tagIndex) throws IOException {
+        final Ref head = refFiles.readHead();
+        final ObjectId headId = head != null ? head.getObjectId() : null;
+        if (headId == null) {
+            // no commits yet
+            return new HeadSnapshot(ObjectId.zeroId().name(), Constants.MASTER, Collections.emptyList());
+        }
+
+        final String branch = head.isSymbolic()
+                ? Repository.shortenRefName(head.getTarget().getName())
+                : null;
+        final List<String> tags = tagIndex != null ? tagIndex.getTags(headId) : Collections.emptyList();
+        return new HeadSnapshot(headId.name(), branch, tags);
+    }
+
+    /**
+     * @return HEAD commit id, all zeros if there are no commits yet
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    /**
+     * @return checked out branch, empty if HEAD is detached
+     */
+    public Optional<String> getBranch() {
+        return Optional.ofNullable(branch);
+    }
+
+    /**
+     * @return tags pointing to HEAD commit, empty if tags were not requested
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+}
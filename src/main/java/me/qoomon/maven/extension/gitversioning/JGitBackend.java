@@ -0,0 +1,61 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Default {@link GitBackend}, refs are read by {@link GitRefFiles}, tags by {@link GitTagIndex},
+ * status is computed by {@link FsMonitorStatusEngine} or {@link GitStatusEngine}.
+ * Status of an index with required extensions, e.g. split index, is computed by {@link NativeGitBackend}.
+ */
+public class JGitBackend implements GitBackend {
+
+    private final Logger logger;
+    private final GitBackend nativeGitBackend = new NativeGitBackend();
+
+    public JGitBackend(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public HeadSnapshot readHead(PooledRepository repository, List<String> tagPrefixes) throws IOException {
+        final GitTagIndex tagIndex = tagPrefixes != null ? repository.getTagIndex(tagPrefixes) : null;
+        return HeadSnapshot.read(repository.getRefFiles(), tagIndex);
+    }
+
+    @Override
+    public List<String> readTags(PooledRepository repository, String commit, List<String> tagPrefixes) throws IOException {
+        return repository.getTagIndex(tagPrefixes).getTags(ObjectId.fromString(commit));
+    }
+
+    @Override
+    public boolean isWorkingTreeClean(PooledRepository pooledRepository, boolean includeUntracked, StatusPaths paths,
+                                      int parallelism) throws IOException {
+        final Repository repository = pooledRepository.getRepository();
+        // HEAD is read like by readHead, JGit's ref database is not used
+        final ObjectId headCommit = pooledRepository.getRefFiles().readHead().getObjectId();
+        TreeFilter pathFilter = GitStatusEngine.pathFilter(repository, paths);
+        if (pathFilter == null) {
+            logger.debug("skip git status - paths outside of working tree " + paths);
+            return true;
+        }
+        logger.debug("git status path filter " + pathFilter);
+        try {
+            Optional<Boolean> fsMonitorClean = FsMonitorStatusEngine.isClean(repository, headCommit, includeUntracked, pathFilter);
+            if (fsMonitorClean.isPresent()) {
+                logger.debug("git status by fsmonitor - " + pooledRepository.getDirectory());
+                return fsMonitorClean.get();
+            }
+            return GitStatusEngine.isClean(repository, headCommit, includeUntracked, pathFilter, parallelism);
+        } catch (GitIndexFile.UnsupportedExtensionException e) {
+            logger.debug("git status by native git, " + e.getMessage() + " - " + pooledRepository.getDirectory());
+            return nativeGitBackend.isWorkingTreeClean(pooledRepository, includeUntracked, paths, parallelism);
+        }
+    }
+}
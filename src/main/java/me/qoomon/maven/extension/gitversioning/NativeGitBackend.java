@@ -0,0 +1,225 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GitBackend} calling the local <code>git</code> executable, output is parsed from plumbing and porcelain commands.
+ * <p>
+ * Benefits from git features JGit does not support, e.g. a running fsmonitor daemon, split index or index v4.
+ * Status is read with <code>--no-optional-locks</code>, so the index is never rewritten by the build.
+ */
+public class NativeGitBackend implements GitBackend {
+
+    private static final long TIMEOUT_SECONDS = 60;
+    // environment variables overriding repository discovery
+    private static final List<String> REPOSITORY_ENVIRONMENT = Arrays.asList(
+            "GIT_DIR", "GIT_WORK_TREE", "GIT_INDEX_FILE", "GIT_COMMON_DIR", "GIT_OBJECT_DIRECTORY");
+
+    private final String executable;
+    // top level working tree directories by git directory
+    private final Map<File, File> workTrees = new ConcurrentHashMap<>();
+
+    public NativeGitBackend() {
+        this("git");
+    }
+
+    /**
+     * @param executable git executable
+     */
+    public NativeGitBackend(String executable) {
+        this.executable = executable;
+    }
+
+    @Override
+    public HeadSnapshot readHead(PooledRepository repository, List<String> tagPrefixes) throws IOException {
+        final File gitDir = repository.getDirectory();
+        final Result revParse = git(gitDir, null, "rev-parse", Constants.HEAD, "--symbolic-full-name", Constants.HEAD);
+        if (revParse.exitCode != 0) {
+            if (git(gitDir, null, "symbolic-ref", "-q", Constants.HEAD).exitCode == 0) {
+                // no commits yet
+                return new HeadSnapshot(ObjectId.zeroId().name(), Constants.MASTER, Collections.emptyList());
+            }
+            throw new IOException("git rev-parse failed with exit code " + revParse.exitCode + " - " + gitDir);
+        }
+        final List<String> lines = revParse.lines();
+        final String commit = lines.get(0);
+        final String headRefName = lines.get(1);
+        final String branch = headRefName.equals(Constants.HEAD) ? null : Repository.shortenRefName(headRefName);
+
+        final List<String> tags = tagPrefixes != null ? readTags(repository, commit, tagPrefixes) : Collections.emptyList();
+        return new HeadSnapshot(commit, branch, tags);
+    }
+
+    @Override
+    public List<String> readTags(PooledRepository repository, String commit, List<String> tagPrefixes) throws IOException {
+        final List<String> tags = new ArrayList<>();
+        if (!tagPrefixes.isEmpty() && !ObjectId.zeroId().name().equals(commit)) {
+            List<String> args = new ArrayList<>(Arrays.asList("for-each-ref", "--points-at=" + commit, "--format=%(refname)"));
+            for (String tagPrefix : tagPrefixes) {
+                args.add(Constants.R_TAGS + escapeGlob(tagPrefix) + "*");
+            }
+            for (String refName : git(repository.getDirectory(), null, args.toArray(new String[0])).checkSuccess("for-each-ref").lines()) {
+                tags.add(refName.substring(Constants.R_TAGS.length()));
+            }
+        }
+        return tags;
+    }
+
+    @Override
+    public boolean isWorkingTreeClean(PooledRepository repository, boolean includeUntracked, StatusPaths paths,
+                                      int parallelism) throws IOException {
+        final List<String> args = new ArrayList<>(Arrays.asList("--no-optional-locks", "status", "--porcelain", "-z",
+                "--untracked-files=" + (includeUntracked ? "normal" : "no"), "--"));
+        final File workTree = workTree(repository);
+        final List<String> pathspecs = pathspecs(workTree, paths);
+        if (pathspecs == null) {
+            // nothing to compare
+            return true;
+        }
+        args.addAll(pathspecs);
+        // pathspecs are relative to working directory
+        final Result status = git(null, workTree, args.toArray(new String[0])).checkSuccess("status");
+        return status.output.length == 0;
+    }
+
+    /**
+     * Repository may be discovered from a subdirectory of the working tree, e.g. from the first module.
+     *
+     * @return top level directory of working tree, like {@link Repository#getWorkTree()}, resolved once per repository
+     */
+    private File workTree(PooledRepository repository) throws IOException {
+        File workTree = workTrees.get(repository.getDirectory());
+        if (workTree == null) {
+            // repository is discovered from within working tree, like by JGit
+            final List<String> lines = git(null, repository.getWorkTreeDirectory(), "rev-parse", "--show-toplevel")
+                    .checkSuccess("rev-parse").lines();
+            if (lines.isEmpty()) {
+                throw new IOException("no working tree - " + repository.getDirectory());
+            }
+            workTree = new File(lines.get(0));
+            workTrees.put(repository.getDirectory(), workTree);
+        }
+        return workTree;
+    }
+
+    /**
+     * Directories outside of working tree are ignored like by {@link GitStatusEngine#pathFilter(Repository, StatusPaths)},
+     * git fails for pathspecs outside of working tree.
+     *
+     * @return pathspecs relative to <code>workTree</code>, empty for whole working tree, null if all <code>paths</code> are outside of working tree
+     */
+    private static List<String> pathspecs(File workTree, StatusPaths paths) throws IOException {
+        final Path canonicalWorkTree = workTree.getCanonicalFile().toPath();
+        final List<String> pathspecs = new ArrayList<>();
+        for (File directory : paths.getDirectories()) {
+            String path = GitStatusEngine.relativePath(canonicalWorkTree, directory);
+            if (path != null && path.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (path != null) {
+                pathspecs.add(":(literal)" + path);
+            }
+        }
+        for (File directory : paths.getFileDirectories()) {
+            String path = GitStatusEngine.relativePath(canonicalWorkTree, directory);
+            if (path != null) {
+                // wildcard of glob pathspec does not match '/', so only files directly within directory match
+                pathspecs.add(":(glob)" + (path.isEmpty() ? "" : escapeGlob(path) + "/") + "*");
+            }
+        }
+        return pathspecs.isEmpty() && !paths.isEmpty() ? null : pathspecs;
+    }
+
+    private Result git(File gitDir, File workingDirectory, String... args) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(executable);
+        if (gitDir != null) {
+            command.add("--git-dir=" + gitDir.getAbsolutePath());
+        }
+        command.addAll(Arrays.asList(args));
+        final ProcessBuilder processBuilder = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        if (workingDirectory != null) {
+            processBuilder.directory(workingDirectory);
+        }
+        processBuilder.environment().keySet().removeAll(REPOSITORY_ENVIRONMENT);
+        // output is written to a file instead of a pipe, so waiting for git stays interruptible, e.g. by a time budget
+        final File outputFile = File.createTempFile("git-versioning-", ".out");
+        try {
+            processBuilder.redirectOutput(outputFile);
+            final Process process = processBuilder.start();
+            try {
+                process.getOutputStream().close();
+                if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IOException("git " + args[0] + " timed out");
+                }
+                return new Result(process.exitValue(), Files.readAllBytes(outputFile.toPath()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("git " + args[0] + " interrupted");
+            } finally {
+                process.destroy();
+            }
+        } finally {
+            Files.deleteIfExists(outputFile.toPath());
+        }
+    }
+
+    /**
+     * @return <code>text</code> with wildmatch special characters escaped
+     */
+    private static String escapeGlob(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static class Result {
+
+        final int exitCode;
+        final byte[] output;
+
+        Result(int exitCode, byte[] output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        Result checkSuccess(String command) throws IOException {
+            if (exitCode != 0) {
+                throw new IOException("git " + command + " failed with exit code " + exitCode);
+            }
+            return this;
+        }
+
+        List<String> lines() {
+            List<String> lines = new ArrayList<>();
+            for (String line : new String(output, StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+    }
+}
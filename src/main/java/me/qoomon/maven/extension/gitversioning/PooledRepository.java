@@ -0,0 +1,241 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitConfigScope;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Git repository handle shared by all modules of a build, see {@link GitRepositoryPool}.
+ * <p>
+ * Refs are read by {@link GitRefFiles}, the JGit {@link Repository} is only opened on first access,
+ * e.g. for working tree status or to peel tags.
+ * <p>
+ * Not thread safe, except {@link #getRepository()}. The {@link ObjectReader} must only be used from the model building thread.
+ */
+public class PooledRepository implements AutoCloseable {
+
+    private final File gitDir;
+    private final File workTreeDirectory;
+    private final GitConfigScope configScope;
+    private final GitSharedCache sharedCache;
+    private final GitRefFiles refFiles;
+    // opened on first access
+    private Repository repository;
+    private ObjectReader objectReader;
+    private int reuseCount = 0;
+    private CompletableFuture<Boolean> workingTreeClean;
+    // counted down as soon as status computation does not access repository anymore
+    private CountDownLatch statusFinished;
+    private GitTagIndex tagIndex;
+    private List<String> tagIndexPrefixes;
+
+    PooledRepository(File gitDir, File workTreeDirectory) throws IOException {
+        this(gitDir, workTreeDirectory, GitConfigScope.SYSTEM, false, null);
+    }
+
+    /**
+     * @param networkFileSystem whether refs are read once per session, see {@link GitRefFiles#open(File, boolean)}
+     * @param sharedCache       user wide cache shared with other clones, may be null
+     */
+    PooledRepository(File gitDir, File workTreeDirectory, GitConfigScope configScope, boolean networkFileSystem,
+                     GitSharedCache sharedCache) throws IOException {
+        this.gitDir = gitDir;
+        this.workTreeDirectory = workTreeDirectory;
+        this.configScope = configScope;
+        this.sharedCache = sharedCache;
+        this.refFiles = GitRefFiles.open(gitDir, networkFileSystem);
+    }
+
+    public File getDirectory() {
+        return gitDir;
+    }
+
+    /**
+     * @return directory within working tree the repository has been discovered from
+     */
+    public File getWorkTreeDirectory() {
+        return workTreeDirectory;
+    }
+
+    public GitRefFiles getRefFiles() {
+        return refFiles;
+    }
+
+    /**
+     * @return user wide cache shared with other clones, null if disabled
+     */
+    public GitSharedCache getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * @return JGit repository, opened on first access
+     */
+    public synchronized Repository getRepository() {
+        if (repository == null) {
+            try {
+                repository = openRepository(gitDir, configScope);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * @param gitDir      git directory
+     * @param configScope git config files to load
+     * @return opened repository
+     * @throws IOException if repository can not be opened
+     */
+    static Repository openRepository(File gitDir, GitConfigScope configScope) throws IOException {
+        final FileRepositoryBuilder builder = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true);
+        if (configScope == GitConfigScope.SYSTEM) {
+            return builder.build();
+        }
+        // file system instance of this repository only, unlike SystemReader it is not shared with other JGit users of the JVM
+        final FS fs = FS.DETECTED.newInstance();
+        // no system config, its discovery spawns git processes
+        fs.setGitSystemConfig(null);
+        builder.setFS(fs);
+        if (configScope == GitConfigScope.USER) {
+            return builder.build();
+        }
+        final Repository repository = new RepositoryConfigOnlyRepository(builder.setup());
+        if (!repository.getObjectDatabase().exists()) {
+            repository.close();
+            throw new RepositoryNotFoundException(gitDir);
+        }
+        return repository;
+    }
+
+    /**
+     * @return object reader, created on first access
+     */
+    public ObjectReader getObjectReader() {
+        if (objectReader == null) {
+            objectReader = getRepository().newObjectReader();
+        }
+        return objectReader;
+    }
+
+    /**
+     * @return true if JGit repository has been opened
+     */
+    synchronized boolean isRepositoryOpen() {
+        return repository != null;
+    }
+
+    /**
+     * @param tagPrefixes only tags starting with one of these prefixes are indexed
+     * @return tag index, loaded on first access or if prefixes differ from previous access
+     * @throws IOException if tags can not be read
+     */
+    public GitTagIndex getTagIndex(List<String> tagPrefixes) throws IOException {
+        if (tagIndex == null || !tagIndexPrefixes.equals(tagPrefixes)) {
+            tagIndex = GitTagIndexStore.load(refFiles, this::getObjectReader, tagPrefixes, sharedCache);
+            tagIndexPrefixes = tagPrefixes;
+        }
+        return tagIndex;
+    }
+
+    /**
+     * @return how many times this handle was handed out again after it has been opened
+     */
+    public int getReuseCount() {
+        return reuseCount;
+    }
+
+    void markReused() {
+        reuseCount++;
+    }
+
+    CompletableFuture<Boolean> getWorkingTreeClean() {
+        return workingTreeClean;
+    }
+
+    /**
+     * @param workingTreeClean future of working tree clean flag
+     * @param statusFinished   counted down when status computation has finished, awaited by {@link #close()}, may be null
+     */
+    void setWorkingTreeClean(CompletableFuture<Boolean> workingTreeClean, CountDownLatch statusFinished) {
+        this.workingTreeClean = workingTreeClean;
+        this.statusFinished = statusFinished;
+    }
+
+    @Override
+    public void close() {
+        if (statusFinished != null) {
+            // do not pull the repository from under a running status computation,
+            // a cancelled future completes before its interrupted computation has finished
+            awaitUninterruptibly(statusFinished);
+        }
+        if (objectReader != null) {
+            objectReader.close();
+        }
+        synchronized (this) {
+            if (repository != null) {
+                repository.close();
+            }
+        }
+    }
+
+    /**
+     * Repository whose config has no user and system config as base, see {@link GitConfigScope#REPOSITORY}.
+     * <p>
+     * JGit chains user config, located by {@link FS#userHome()}, below repository config and has no other hook to skip it.
+     * User home stays untouched, e.g. for <code>~/</code> paths of <code>core.excludesFile</code> within repository config.
+     */
+    private static class RepositoryConfigOnlyRepository extends FileRepository {
+
+        // first accessed by super constructor, before fields of this class are initialized
+        private FileBasedConfig repositoryConfig;
+
+        RepositoryConfigOnlyRepository(FileRepositoryBuilder builder) throws IOException {
+            super(builder);
+        }
+
+        @Override
+        public synchronized FileBasedConfig getConfig() {
+            if (repositoryConfig == null) {
+                repositoryConfig = new FileBasedConfig(null, new File(getDirectory(), Constants.CONFIG), getFS());
+            }
+            if (repositoryConfig.isOutdated()) {
+                try {
+                    repositoryConfig.load();
+                } catch (IOException | ConfigInvalidException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return repositoryConfig;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.ModelUtil;
+import org.apache.maven.model.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Working tree paths of reactor projects, working tree status is restricted to these paths.
+ * <p>
+ * Directories of projects without modules are included with all files.
+ * Directories of projects with modules are only included with their own files, e.g. <code>pom.xml</code>,
+ * and their <code>.mvn</code> directory, other subdirectories are only included if they are module directories.
+ * No paths at all means the whole working tree.
+ * <p>
+ * Not thread safe, see {@link #copy()}.
+ */
+public final class StatusPaths {
+
+    private final Set<File> directories = new LinkedHashSet<>();
+    private final Set<File> fileDirectories = new LinkedHashSet<>();
+
+    /**
+     * Paths of all reactor projects, independent of which project models have been read so far.
+     *
+     * @param pomFile          root project pom file of session, may be null
+     * @param projectDirectory multi module project directory, included with all files if there is no root project pom file, may be null
+     * @return paths of root project and its modules
+     * @throws IOException if root project pom file can not be read
+     */
+    public static StatusPaths reactor(File pomFile, File projectDirectory) throws IOException {
+        final StatusPaths paths = new StatusPaths();
+        if (pomFile != null && pomFile.isFile()) {
+            paths.addProject(ModelUtil.readModel(pomFile), pomFile.getParentFile());
+        } else if (projectDirectory != null) {
+            paths.addDirectory(projectDirectory);
+        }
+        return paths;
+    }
+
+    /**
+     * @param model            project model
+     * @param projectDirectory base directory of <code>model</code>
+     */
+    public void addProject(Model model, File projectDirectory) {
+        final Set<File> moduleDirectories = ModelUtil.getModuleDirectories(model, projectDirectory);
+        if (moduleDirectories.isEmpty()) {
+            directories.add(projectDirectory);
+        } else {
+            fileDirectories.add(projectDirectory);
+            directories.add(new File(projectDirectory, ".mvn"));
+            directories.addAll(moduleDirectories);
+        }
+    }
+
+    /**
+     * @param directory directory included with all files
+     */
+    public void addDirectory(File directory) {
+        directories.add(directory);
+    }
+
+    /**
+     * @param paths paths to include
+     */
+    public void addAll(StatusPaths paths) {
+        directories.addAll(paths.directories);
+        fileDirectories.addAll(paths.fileDirectories);
+    }
+
+    /**
+     * @return directories included with all files
+     */
+    public Set<File> getDirectories() {
+        return Collections.unmodifiableSet(directories);
+    }
+
+    /**
+     * @return directories included with their own files only, subdirectories are not included
+     */
+    public Set<File> getFileDirectories() {
+        return Collections.unmodifiableSet(fileDirectories);
+    }
+
+    public boolean isEmpty() {
+        return directories.isEmpty() && fileDirectories.isEmpty();
+    }
+
+    public void clear() {
+        directories.clear();
+        fileDirectories.clear();
+    }
+
+    /**
+     * @return independent copy, e.g. to be used by another thread
+     */
+    public StatusPaths copy() {
+        StatusPaths copy = new StatusPaths();
+        copy.directories.addAll(directories);
+        copy.fileDirectories.addAll(fileDirectories);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "directories=" + directories + ", fileDirectories=" + fileDirectories;
+    }
+}
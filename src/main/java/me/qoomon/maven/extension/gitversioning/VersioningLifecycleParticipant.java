@@ -0,0 +1,65 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitPhase;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfigurationProvider;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.Logger;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Prepares and releases session wide resources of {@link VersioningModelProcessor}.
+ */
+@Component(role = AbstractMavenLifecycleParticipant.class, hint = "git-versioning")
+public class VersioningLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    private final Logger logger;
+    private final VersioningConfigurationProvider configurationProvider;
+    private final GitRepositoryPool repositoryPool;
+    private final GitTimeBudget timeBudget;
+
+    @Inject
+    public VersioningLifecycleParticipant(final Logger logger, final VersioningConfigurationProvider configurationProvider,
+                                          final GitRepositoryPool repositoryPool, final GitTimeBudget timeBudget) {
+        this.logger = logger;
+        this.configurationProvider = configurationProvider;
+        this.repositoryPool = repositoryPool;
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public void afterSessionStart(MavenSession session) {
+        final File projectDirectory = session.getRequest().getMultiModuleProjectDirectory();
+        if (projectDirectory == null) {
+            return;
+        }
+        final VersioningConfiguration configuration = configurationProvider.get();
+        if (!configuration.isEnabled()) {
+            return;
+        }
+
+        // start working tree status computation before any model is read,
+        // restricted to root project and its module directories
+        final File pomFile = session.getRequest().getPom();
+        try {
+            StatusPaths statusPaths = StatusPaths.reactor(pomFile, projectDirectory);
+            PooledRepository pooledRepository = timeBudget.call(GitPhase.DISCOVERY, configuration.getTimeBudget(GitPhase.DISCOVERY),
+                    () -> repositoryPool.acquire(projectDirectory, configuration), null, "skip early git status");
+            if (pooledRepository != null) {
+                repositoryPool.workingTreeClean(pooledRepository, configuration, statusPaths);
+            }
+        } catch (IOException e) {
+            logger.debug("skip early git status - " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) {
+        repositoryPool.close();
+    }
+}
@@ -3,6 +3,7 @@ package me.qoomon.maven.extension.gitversioning;
 import com.google.inject.Key;
 import com.google.inject.OutOfScopeException;
 import me.qoomon.maven.BuildProperties;
+import me.qoomon.maven.extension.gitversioning.config.GitPhase;
 import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
 import me.qoomon.maven.extension.gitversioning.config.VersioningConfigurationProvider;
 import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
@@ -15,9 +16,6 @@ import org.apache.maven.model.building.ModelProcessor;
 import org.apache.maven.session.scope.internal.SessionScope;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.Logger;
-import org.eclipse.jgit.api.Status;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -25,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static me.qoomon.maven.extension.gitversioning.StringUtil.*;
 
@@ -38,21 +37,34 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
     private final Logger logger;
     // for preventing unnecessary logging
     private final Set<String> loggingBouncer = new HashSet<>();
+    // repository wide version context per git directory
+    private final Map<File, GitVersionContext> versionContexts = new HashMap<>();
+    // base directories of accepted project poms and their modules
+    private final StatusPaths statusPaths = new StatusPaths();
 
     private final SessionScope sessionScope;
     private final VersioningConfigurationProvider configurationProvider;
+    private final GitRepositoryPool repositoryPool;
+    private final GitTimeBudget timeBudget;
 
     private MavenSession mavenSession;  // can not be injected cause it is not always available
     private VersioningConfiguration configuration;
 
     private boolean initialized = false;
+    // a git operation exceeded its time budget before any project was versioned, all projects keep their versions
+    private boolean gitTimedOut = false;
 
 
     @Inject
-    public VersioningModelProcessor(final Logger logger, final SessionScope sessionScope, final VersioningConfigurationProvider configurationProvider) {
+    public VersioningModelProcessor(final Logger logger, final SessionScope sessionScope, final VersioningConfigurationProvider configurationProvider,
+                                    final GitRepositoryPool repositoryPool, final GitTimeBudget timeBudget) {
         this.logger = logger;
         this.sessionScope = sessionScope;
         this.configurationProvider = configurationProvider;
+        this.repositoryPool = repositoryPool;
+        this.timeBudget = timeBudget;
+        // processor outlives session in a long running JVM, e.g. a Maven daemon
+        repositoryPool.addCloseListener(this::reset);
     }
 
     @Override
@@ -85,6 +97,7 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
                 try {
                     mavenSession = sessionScope.scope(Key.get(MavenSession.class), null).get();
                     configuration = configurationProvider.get();
+                    repositoryPool.configureWindowCache(configuration.getWindowCacheConfig(), configuration.getWindowCacheIdleLimit());
                 } catch (OutOfScopeException ex) {
                     logger.warn("skip - no maven session present");
                 }
@@ -126,7 +139,13 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
                 return projectModel;
             }
 
+            statusPaths.addProject(projectModel, projectPomFile.getParentFile());
+
             final GAVGit projectGitBasedVersion = determineGitBasedProjectVersion(projectGav, projectPomFile.getParentFile());
+            if (projectGitBasedVersion == null) {
+                logger.debug("skip - git time budget exceeded - " + projectPomFile);
+                return projectModel;
+            }
 
             // log only once per GAV
             if (loggingBouncer.add(projectGav.toString())) {
@@ -168,9 +187,10 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
                     }
 
                     final GAVGit parentGitBasedVersion = determineGitBasedProjectVersion(parentGav, parentPomFile.getParentFile());
-
-                    logger.debug("set parent version to " + parentGitBasedVersion + " in " + projectPomFile);
-                    virtualProjectModel.getParent().setVersion(parentGitBasedVersion.getVersion());
+                    if (parentGitBasedVersion != null) {
+                        logger.debug("set parent version to " + parentGitBasedVersion + " in " + projectPomFile);
+                        virtualProjectModel.getParent().setVersion(parentGitBasedVersion.getVersion());
+                    }
                 }
             }
 
@@ -184,6 +204,19 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
         }
     }
 
+    /**
+     * Drops all session state, next model read initializes processor for a new session.
+     */
+    private void reset() {
+        loggingBouncer.clear();
+        versionContexts.clear();
+        statusPaths.clear();
+        mavenSession = null;
+        configuration = null;
+        initialized = false;
+        gitTimedOut = false;
+    }
+
     /**
      * checks if <code>pomFile</code> is part of a project
      *
@@ -215,106 +248,202 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
         model.getBuild().getPlugins().add(projectPlugin);
     }
 
-    private GAVGit determineGitBasedProjectVersion(GAV gav, File gitDir) throws IOException {
+    /**
+     * @return git based version, null if a git operation exceeded its time budget
+     */
+    private GAVGit determineGitBasedProjectVersion(GAV gav, File projectDirectory) throws IOException {
+        if (gitTimedOut) {
+            return null;
+        }
 
-        FileRepositoryBuilder repositoryBuilder = new FileRepositoryBuilder().findGitDir(gitDir);
-        logger.debug(gav + "git directory " + repositoryBuilder.getGitDir());
+        final PooledRepository pooledRepository = timeBudget.call(GitPhase.DISCOVERY, versionFallbackTimeBudget(GitPhase.DISCOVERY),
+                () -> repositoryPool.acquire(projectDirectory, configuration), null, "keep project versions");
+        if (pooledRepository == null) {
+            gitTimedOut = true;
+            return null;
+        }
+        logger.debug(gav + "git directory " + pooledRepository.getDirectory());
+
+        GitVersionContext versionContext = versionContexts.get(pooledRepository.getDirectory());
+        if (versionContext == null) {
+            versionContext = determineGitVersionContext(pooledRepository);
+            if (versionContext == null) {
+                gitTimedOut = true;
+                return null;
+            }
+            versionContexts.put(pooledRepository.getDirectory(), versionContext);
+        }
 
-        try (Repository repository = repositoryBuilder.build()) {
+        return versionContext.resolve(gav);
+    }
 
-            final Status status = GitUtil.getStatus(repository);
-            if (!status.isClean()) {
-                // log only once per git repository
-                if (loggingBouncer.add(repository.getDirectory().getPath())) {
-                    logger.warn("Git working tree is not clean " + repository.getDirectory());
-                }
-            }
+    /**
+     * Falling back to unchanged project versions is only consistent as long as no project has been versioned,
+     * otherwise a reactor of git based and original versions would reference parent versions which do not exist.
+     *
+     * @param phase git operation whose fallback keeps project versions unchanged
+     * @return time budget of <code>phase</code>, null once any project has been versioned
+     */
+    private Long versionFallbackTimeBudget(GitPhase phase) {
+        return versionContexts.isEmpty() ? configuration.getTimeBudget(phase) : null;
+    }
 
-            final String headCommit = GitUtil.getHeadCommit(repository);
+    /**
+     * Status may be started by the first accepted project, so modules which are read later have to be included already.
+     *
+     * @return paths of all reactor projects and of accepted projects, e.g. of parents outside of reactor
+     */
+    private StatusPaths reactorStatusPaths() {
+        final StatusPaths paths = new StatusPaths();
+        try {
+            paths.addAll(StatusPaths.reactor(mavenSession.getRequest().getPom(), mavenSession.getRequest().getMultiModuleProjectDirectory()));
+        } catch (IOException e) {
+            logger.debug("git status of accepted projects only - " + e.getMessage());
+        }
+        paths.addAll(statusPaths);
+        return paths;
+    }
 
-            Optional<String> headBranch = GitUtil.getHeadBranch(repository);
-            final String providedBranch = configuration.getProvidedBranch();
-            if (providedBranch != null) {
-                if (!providedBranch.isEmpty()) {
-                    headBranch = Optional.of(providedBranch);
-                } else {
-                    headBranch = Optional.empty();
+    /**
+     * @return version context, null if HEAD lookup exceeded its time budget
+     */
+    private GitVersionContext determineGitVersionContext(PooledRepository pooledRepository) throws IOException {
+
+        // status is only awaited if version format needs it, otherwise it is still computed in background
+        // to warn about a not clean working tree, even if a stored version context is used
+        final CompletableFuture<Boolean> workingTreeClean = repositoryPool.workingTreeClean(pooledRepository, configuration, reactorStatusPaths());
+
+        // determined before refs are read, concurrent ref updates invalidate stored context next time
+        final String storeKey = configuration.isVersionCache()
+                ? GitVersionContextStore.key(pooledRepository.getRefFiles(), configuration)
+                : null;
+        if (storeKey != null) {
+            final GitVersionContext storedVersionContext = GitVersionContextStore.load(pooledRepository.getRefFiles(), storeKey);
+            if (storedVersionContext != null) {
+                logger.debug("stored version context is up to date - " + pooledRepository.getDirectory());
+                return storedVersionContext;
+            }
+        }
+        final GitSharedCache sharedCache = pooledRepository.getSharedCache();
+        final String sharedKey = sharedCache != null
+                ? GitVersionContextStore.sharedKey(pooledRepository.getRefFiles(), configuration)
+                : null;
+        if (sharedKey != null) {
+            final GitVersionContext sharedVersionContext = GitVersionContextStore.load(sharedCache, sharedKey);
+            if (sharedVersionContext != null) {
+                logger.debug("version context from shared cache " + sharedCache.getDirectory() + " - " + pooledRepository.getDirectory());
+                if (storeKey != null) {
+                    GitVersionContextStore.save(pooledRepository.getRefFiles(), storeKey, sharedVersionContext);
                 }
+                return sharedVersionContext;
             }
+        }
 
-            List<String> headTags = GitUtil.getHeadTags(repository);
-            final String providedTag = configuration.getProvidedTag();
-            if (providedTag != null) {
-                if (!providedTag.isEmpty()) {
-                    headTags = Collections.singletonList(providedTag);
-                } else {
-                    headTags = Collections.emptyList();
-                }
+        final GitBackend backend = repositoryPool.getBackend(configuration.getBackendType());
+        final HeadSnapshot head = timeBudget.call(GitPhase.HEAD, versionFallbackTimeBudget(GitPhase.HEAD),
+                () -> backend.readHead(pooledRepository, null), null, "keep project versions");
+        if (head == null) {
+            return null;
+        }
+        final String headCommit = head.getCommit();
+
+        Optional<String> headBranch = head.getBranch();
+        final String providedBranch = configuration.getProvidedBranch();
+        if (providedBranch != null) {
+            if (!providedBranch.isEmpty()) {
+                headBranch = Optional.of(providedBranch);
+            } else {
+                headBranch = Optional.empty();
             }
+        }
 
-            // default versioning
-            VersionFormatDescription projectVersionFormatDescription = configuration.getCommitVersionDescription();
-            String projectCommitRefType = "commit";
-            String projectCommitRefName = headCommit;
+        final String providedTag = configuration.getProvidedTag();
+        final List<String> headTags;
+        // contexts resolved from fallback values are not stored
+        boolean storable = true;
+        if (providedTag != null) {
+            if (!providedTag.isEmpty()) {
+                headTags = Collections.singletonList(providedTag);
+            } else {
+                headTags = Collections.emptyList();
+            }
+        } else if (headBranch.isPresent()) {
+            // tags are only considered for detached HEAD
+            headTags = Collections.emptyList();
+        } else {
+            // tags not matching any tag pattern are skipped
+            final List<String> tags = timeBudget.call(GitPhase.TAGS, configuration.getTimeBudget(GitPhase.TAGS),
+                    () -> backend.readTags(pooledRepository, headCommit, configuration.getTagPrefixes()),
+                    null, "tags are ignored");
+            storable = tags != null;
+            headTags = tags != null ? tags : Collections.emptyList();
+        }
 
-            // branch versioning
-            if (headBranch.isPresent() && providedTag == null) {
-                for (VersionFormatDescription versionFormatDescription : configuration.getBranchVersionDescriptions()) {
-                    if (headBranch.get().matches(versionFormatDescription.pattern)) {
+        // default versioning
+        VersionFormatDescription projectVersionFormatDescription = configuration.getCommitVersionDescription();
+        String projectCommitRefType = "commit";
+        String projectCommitRefName = headCommit;
+
+        // branch versioning
+        if (headBranch.isPresent() && providedTag == null) {
+            for (VersionFormatDescription versionFormatDescription : configuration.getBranchVersionDescriptions()) {
+                if (headBranch.get().matches(versionFormatDescription.pattern)) {
+                    projectVersionFormatDescription = versionFormatDescription;
+                    projectCommitRefType = "branch";
+                    projectCommitRefName = headBranch.get();
+                    break;
+                }
+            }
+        } else
+            // tag versioning
+            if (!headTags.isEmpty()) {
+                for (VersionFormatDescription versionFormatDescription : configuration.getTagVersionDescriptions()) {
+                    // -1 revert sorting, latest version first
+                    Optional<String> headVersionTag = headTags.stream().sequential()
+                            .filter(tag -> tag.matches(versionFormatDescription.pattern))
+                            .max((tagLeft, tagRight) -> {
+                                String versionLeft = removePrefix(tagLeft, versionFormatDescription.prefix);
+                                String versionRight = removePrefix(tagRight, versionFormatDescription.prefix);
+                                DefaultArtifactVersion tagVersionLeft = new DefaultArtifactVersion(versionLeft);
+                                DefaultArtifactVersion tagVersionRight = new DefaultArtifactVersion(versionRight);
+                                return tagVersionLeft.compareTo(tagVersionRight);
+                            });
+                    if (headVersionTag.isPresent()) {
                         projectVersionFormatDescription = versionFormatDescription;
-                        projectCommitRefType = "branch";
-                        projectCommitRefName = headBranch.get();
+                        projectCommitRefType = "tag";
+                        projectCommitRefName = headVersionTag.get();
                         break;
                     }
                 }
-            } else
-                // tag versioning
-                if (!headTags.isEmpty()) {
-                    for (VersionFormatDescription versionFormatDescription : configuration.getTagVersionDescriptions()) {
-                        // -1 revert sorting, latest version first
-                        Optional<String> headVersionTag = headTags.stream().sequential()
-                                .filter(tag -> tag.matches(versionFormatDescription.pattern))
-                                .max((tagLeft, tagRight) -> {
-                                    String versionLeft = removePrefix(tagLeft, versionFormatDescription.prefix);
-                                    String versionRight = removePrefix(tagRight, versionFormatDescription.prefix);
-                                    DefaultArtifactVersion tagVersionLeft = new DefaultArtifactVersion(versionLeft);
-                                    DefaultArtifactVersion tagVersionRight = new DefaultArtifactVersion(versionRight);
-                                    return tagVersionLeft.compareTo(tagVersionRight);
-                                });
-                        if (headVersionTag.isPresent()) {
-                            projectVersionFormatDescription = versionFormatDescription;
-                            projectCommitRefType = "tag";
-                            projectCommitRefName = headVersionTag.get();
-                            break;
-                        }
-                    }
-                }
+            }
 
-            Map<String, String> projectVersionDataMap = buildCommonVersionDataMap(gav);
-            projectVersionDataMap.put("commit", headCommit);
-            projectVersionDataMap.put("commit.short", headCommit.substring(0, 7));
-            projectVersionDataMap.put(projectCommitRefType, removePrefix(projectCommitRefName, projectVersionFormatDescription.prefix));
-            projectVersionDataMap.putAll(getRegexGroupValueMap(projectVersionFormatDescription.pattern, projectCommitRefName));
-            String versionGit = substituteText(projectVersionFormatDescription.versionFormat, projectVersionDataMap);
-            return new GAVGit(
-                    gav.getGroupId(),
-                    gav.getArtifactId(),
-                    escapeVersion(versionGit),
-                    headCommit,
-                    projectCommitRefName,
-                    projectCommitRefType
-            );
+        Map<String, String> projectVersionDataMap = new HashMap<>();
+        projectVersionDataMap.put("commit", headCommit);
+        projectVersionDataMap.put("commit.short", headCommit.substring(0, 7));
+        projectVersionDataMap.put(projectCommitRefType, removePrefix(projectCommitRefName, projectVersionFormatDescription.prefix));
+        projectVersionDataMap.putAll(getRegexGroupValueMap(projectVersionFormatDescription.pattern, projectCommitRefName));
+        if (projectVersionFormatDescription.versionFormat.contains("${dirty}")) {
+            final boolean clean = timeBudget.await(GitPhase.STATUS, configuration.getTimeBudget(GitPhase.STATUS),
+                    workingTreeClean, true, "working tree is considered clean");
+            projectVersionDataMap.put("dirty", clean ? "" : "-DIRTY");
+            // working tree status is not covered by store key
+            storable = false;
         }
-    }
-
-    private static Map<String, String> buildCommonVersionDataMap(GAV gav) {
-        Map<String, String> versionDataMap = new HashMap<>();
-        versionDataMap.put("version", gav.getVersion());
-        versionDataMap.put("version.release", gav.getVersion().replaceFirst("-SNAPSHOT$", ""));
-        return versionDataMap;
-    }
-
-    private static String escapeVersion(String version) {
-        return version.replace("/", "-");
+        final GitVersionContext versionContext = new GitVersionContext(
+                headCommit,
+                projectCommitRefName,
+                projectCommitRefType,
+                projectVersionFormatDescription,
+                projectVersionDataMap
+        );
+        if (storable) {
+            if (storeKey != null) {
+                GitVersionContextStore.save(pooledRepository.getRefFiles(), storeKey, versionContext);
+            }
+            if (sharedKey != null) {
+                GitVersionContextStore.save(sharedCache, sharedKey, versionContext);
+            }
+        }
+        return versionContext;
     }
 }
@@ -0,0 +1,17 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+/**
+ * Implementation used to read HEAD, tags and working tree status.
+ */
+public enum GitBackendType {
+
+    /**
+     * git files are read by the extension itself and by JGit
+     */
+    JGIT,
+
+    /**
+     * local <code>git</code> executable is called
+     */
+    NATIVE
+}
@@ -0,0 +1,22 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+/**
+ * Git config files loaded when a JGit repository is opened.
+ */
+public enum GitConfigScope {
+
+    /**
+     * system, user and repository config, discovery of system config spawns <code>git</code> processes
+     */
+    SYSTEM,
+
+    /**
+     * user and repository config
+     */
+    USER,
+
+    /**
+     * repository config only
+     */
+    REPOSITORY
+}
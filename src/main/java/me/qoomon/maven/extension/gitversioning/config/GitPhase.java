@@ -0,0 +1,27 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+/**
+ * Git operations with their own time budget, see {@link VersioningConfiguration#getTimeBudget(GitPhase)}.
+ */
+public enum GitPhase {
+
+    /**
+     * git directory discovery, falls back to unchanged project version
+     */
+    DISCOVERY,
+
+    /**
+     * HEAD lookup, falls back to unchanged project version
+     */
+    HEAD,
+
+    /**
+     * tags of HEAD commit lookup, falls back to no tags
+     */
+    TAGS,
+
+    /**
+     * working tree status, falls back to clean working tree
+     */
+    STATUS
+}
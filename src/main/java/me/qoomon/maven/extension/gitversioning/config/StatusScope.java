@@ -0,0 +1,22 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+/**
+ * Scope of working tree status check.
+ */
+public enum StatusScope {
+
+    /**
+     * working tree status is not checked at all, working tree is considered clean
+     */
+    NONE,
+
+    /**
+     * only tracked files are checked, untracked files are not scanned
+     */
+    TRACKED,
+
+    /**
+     * tracked and untracked files are checked
+     */
+    FULL
+}
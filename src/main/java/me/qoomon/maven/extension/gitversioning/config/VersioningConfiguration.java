@@ -1,8 +1,14 @@
 package me.qoomon.maven.extension.gitversioning.config;
 
 import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -13,19 +19,50 @@ public class VersioningConfiguration {
     private final boolean enabled;
     private final List<VersionFormatDescription> branchVersionDescriptions;
     private final List<VersionFormatDescription> tagVersionDescriptions;
+    private final List<String> tagPrefixes;
     private final VersionFormatDescription commitVersionDescription;
     private final String providedBranch;
     private final String providedTag;
+    private final StatusScope statusScope;
+    private final int statusParallelism;
+    private final GitBackendType backendType;
+    private final GitConfigScope gitConfigScope;
+    private final boolean networkFileSystem;
+    private final boolean versionCache;
+    private final File sharedCacheDirectory;
+    private final long sharedCacheMaxSize;
+    private final WindowCacheConfig windowCacheConfig;
+    private final Long windowCacheIdleLimit;
+    private final Map<GitPhase, Long> timeBudgets;
 
     public VersioningConfiguration(boolean enabled, List<VersionFormatDescription> branchVersionDescriptions,
                                    List<VersionFormatDescription> tagVersionDescriptions,
-                                   VersionFormatDescription commitVersionDescription, String providedBranch, String providedTag) {
+                                   VersionFormatDescription commitVersionDescription, String providedBranch, String providedTag,
+                                   StatusScope statusScope, int statusParallelism, GitBackendType backendType,
+                                   GitConfigScope gitConfigScope, boolean networkFileSystem, boolean versionCache,
+                                   File sharedCacheDirectory, long sharedCacheMaxSize,
+                                   WindowCacheConfig windowCacheConfig, Long windowCacheIdleLimit,
+                                   Map<GitPhase, Long> timeBudgets) {
         this.enabled = enabled;
         this.branchVersionDescriptions = Objects.requireNonNull(branchVersionDescriptions);
         this.tagVersionDescriptions = Objects.requireNonNull(tagVersionDescriptions);
+        this.tagPrefixes = tagPrefixes(tagVersionDescriptions);
         this.commitVersionDescription = Objects.requireNonNull(commitVersionDescription);
         this.providedBranch = providedBranch;
         this.providedTag = providedTag;
+        this.statusScope = Objects.requireNonNull(statusScope);
+        this.statusParallelism = statusParallelism;
+        this.backendType = Objects.requireNonNull(backendType);
+        this.gitConfigScope = Objects.requireNonNull(gitConfigScope);
+        this.networkFileSystem = networkFileSystem;
+        this.versionCache = versionCache;
+        this.sharedCacheDirectory = sharedCacheDirectory;
+        this.sharedCacheMaxSize = sharedCacheMaxSize;
+        this.windowCacheConfig = windowCacheConfig;
+        this.windowCacheIdleLimit = windowCacheIdleLimit;
+        this.timeBudgets = timeBudgets.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(timeBudgets));
     }
 
     public List<VersionFormatDescription> getBranchVersionDescriptions() {
@@ -36,6 +73,14 @@ public class VersioningConfiguration {
         return tagVersionDescriptions;
     }
 
+    /**
+     * @return literal prefixes every tag matching one of the tag patterns starts with,
+     * a single empty prefix if any tag may match
+     */
+    public List<String> getTagPrefixes() {
+        return tagPrefixes;
+    }
+
     public VersionFormatDescription getCommitVersionDescription() {
         return commitVersionDescription;
     }
@@ -51,4 +96,135 @@ public class VersioningConfiguration {
     public String getProvidedTag() {
         return providedTag;
     }
+
+    public StatusScope getStatusScope() {
+        return statusScope;
+    }
+
+    public int getStatusParallelism() {
+        return statusParallelism;
+    }
+
+    public GitBackendType getBackendType() {
+        return backendType;
+    }
+
+    public GitConfigScope getGitConfigScope() {
+        return gitConfigScope;
+    }
+
+    /**
+     * @return whether git directories are on a network file system, refs are read once per session
+     */
+    public boolean isNetworkFileSystem() {
+        return networkFileSystem;
+    }
+
+    /**
+     * @return whether resolved version contexts are stored in git directory and reused while refs and configuration are unchanged
+     */
+    public boolean isVersionCache() {
+        return versionCache;
+    }
+
+    /**
+     * @return directory of user wide cache shared by all clones, null if disabled
+     */
+    public File getSharedCacheDirectory() {
+        return sharedCacheDirectory;
+    }
+
+    /**
+     * @return maximum bytes of shared cache, least recently used entries are evicted
+     */
+    public long getSharedCacheMaxSize() {
+        return sharedCacheMaxSize;
+    }
+
+    /**
+     * @return JGit window cache config, null if not configured
+     */
+    public WindowCacheConfig getWindowCacheConfig() {
+        return windowCacheConfig;
+    }
+
+    /**
+     * @return maximum bytes of cached pack file windows between sessions, null to keep limit of session
+     */
+    public Long getWindowCacheIdleLimit() {
+        return windowCacheIdleLimit;
+    }
+
+    /**
+     * @param phase git operation
+     * @return maximum milliseconds to wait for <code>phase</code>, null if unlimited
+     */
+    public Long getTimeBudget(GitPhase phase) {
+        return timeBudgets.get(phase);
+    }
+
+    private static List<String> tagPrefixes(List<VersionFormatDescription> tagVersionDescriptions) {
+        List<String> prefixes = new ArrayList<>();
+        for (VersionFormatDescription tagVersionDescription : tagVersionDescriptions) {
+            prefixes.add(literalPrefix(tagVersionDescription.pattern));
+        }
+        Collections.sort(prefixes);
+        // drop prefixes covered by a shorter one, sorting places it right before
+        List<String> tagPrefixes = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (tagPrefixes.isEmpty() || !prefix.startsWith(tagPrefixes.get(tagPrefixes.size() - 1))) {
+                tagPrefixes.add(prefix);
+            }
+        }
+        return Collections.unmodifiableList(tagPrefixes);
+    }
+
+    /**
+     * @param regex pattern matched against whole input
+     * @return literal text every match of <code>regex</code> starts with, possibly empty
+     */
+    static String literalPrefix(String regex) {
+        if (containsAlternation(regex)) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int index = regex.startsWith("^") ? 1 : 0;
+        while (index < regex.length()) {
+            char literal = regex.charAt(index);
+            int next = index + 1;
+            if (literal == '\\') {
+                // escaped letters and digits are character classes, back references or quotations
+                if (next == regex.length() || Character.isLetterOrDigit(regex.charAt(next))) {
+                    break;
+                }
+                literal = regex.charAt(next);
+                next++;
+            } else if (".[](){}*+?^$|".indexOf(literal) >= 0) {
+                break;
+            }
+            char quantifier = next < regex.length() ? regex.charAt(next) : 0;
+            if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                // optional literal
+                break;
+            }
+            prefix.append(literal);
+            if (quantifier == '+') {
+                break;
+            }
+            index = next;
+        }
+        return prefix.toString();
+    }
+
+    private static boolean containsAlternation(String regex) {
+        for (int index = 0; index < regex.length(); index++) {
+            char c = regex.charAt(index);
+            if (c == '\\') {
+                index++;
+            } else if (c == '|') {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -10,13 +10,19 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.session.scope.internal.SessionScope;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.Logger;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.simpleframework.xml.Serializer;
 import org.simpleframework.xml.core.Persister;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by qoomon on 30/11/2016.
@@ -35,6 +41,8 @@ public class VersioningConfigurationProvider {
     private static final String PROJECT_TAG_PROPERTY_KEY = "project.tag";
     private static final String PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME = "MAVEN_PROJECT_TAG";
 
+    private static final long DEFAULT_SHARED_CACHE_MAX_SIZE = 64L * 1024 * 1024;
+
     private SessionScope sessionScope;
 
     @Inject
@@ -49,6 +57,17 @@ public class VersioningConfigurationProvider {
         List<VersionFormatDescription> branchVersionDescriptions = Lists.newArrayList(defaultBranchVersionFormat());
         List<VersionFormatDescription> tagVersionDescriptions = new LinkedList<>();
         VersionFormatDescription commitVersionDescription = defaultCommitVersionFormat();
+        StatusScope statusScope = StatusScope.FULL;
+        int statusParallelism = 1;
+        GitBackendType backendType = GitBackendType.JGIT;
+        GitConfigScope gitConfigScope = null;
+        boolean networkFileSystem = false;
+        boolean versionCache = true;
+        File sharedCacheDirectory = null;
+        long sharedCacheMaxSize = DEFAULT_SHARED_CACHE_MAX_SIZE;
+        WindowCacheConfig windowCacheConfig = null;
+        Long windowCacheIdleLimit = null;
+        Map<GitPhase, Long> timeBudgets = new EnumMap<>(GitPhase.class);
 
         File configFile = getConfigFile(session.getRequest());
         if (configFile.exists()) {
@@ -58,6 +77,38 @@ public class VersioningConfigurationProvider {
             if (configurationModel.commitVersionFormat != null) {
                 commitVersionDescription = new VersionFormatDescription(".*", "", configurationModel.commitVersionFormat);
             }
+            if (configurationModel.statusScope != null) {
+                statusScope = parseStatusScope(configurationModel.statusScope);
+            }
+            if (configurationModel.statusParallelism != null) {
+                statusParallelism = configurationModel.statusParallelism;
+            }
+            if (configurationModel.backend != null) {
+                backendType = parseBackendType(configurationModel.backend);
+            }
+            if (configurationModel.gitConfigScope != null) {
+                gitConfigScope = parseGitConfigScope(configurationModel.gitConfigScope);
+            }
+            if (configurationModel.networkFileSystem != null) {
+                networkFileSystem = configurationModel.networkFileSystem;
+            }
+            if (configurationModel.versionCache != null) {
+                versionCache = configurationModel.versionCache;
+            }
+            if (Boolean.TRUE.equals(configurationModel.sharedCacheEnabled)) {
+                sharedCacheDirectory = parseSharedCacheDirectory(configurationModel.sharedCacheDirectory);
+            }
+            if (configurationModel.sharedCacheMaxSize != null) {
+                sharedCacheMaxSize = parseByteSize("shared cache max size", configurationModel.sharedCacheMaxSize);
+            }
+            windowCacheConfig = parseWindowCacheConfig(configurationModel);
+            if (configurationModel.windowCacheIdleLimit != null) {
+                windowCacheIdleLimit = parseByteSize("window cache idle limit", configurationModel.windowCacheIdleLimit);
+            }
+            putTimeBudget(timeBudgets, GitPhase.DISCOVERY, configurationModel.discoveryTimeBudget);
+            putTimeBudget(timeBudgets, GitPhase.HEAD, configurationModel.headTimeBudget);
+            putTimeBudget(timeBudgets, GitPhase.TAGS, configurationModel.tagsTimeBudget);
+            putTimeBudget(timeBudgets, GitPhase.STATUS, configurationModel.statusTimeBudget);
         } else {
             logger.info("No configuration file found. Apply default configuration.");
         }
@@ -84,7 +135,16 @@ public class VersioningConfigurationProvider {
             providedBranch = null;
         }
 
-        return new VersioningConfiguration(enabledExtension, branchVersionDescriptions, tagVersionDescriptions, commitVersionDescription, providedBranch, providedTag);
+        if (gitConfigScope == null) {
+            // only JGit status depends on system and user config, e.g. core.autocrlf or core.excludesFile
+            gitConfigScope = statusScope == StatusScope.NONE || backendType == GitBackendType.NATIVE
+                    ? GitConfigScope.REPOSITORY
+                    : GitConfigScope.SYSTEM;
+        }
+
+        return new VersioningConfiguration(enabledExtension, branchVersionDescriptions, tagVersionDescriptions, commitVersionDescription, providedBranch, providedTag,
+                statusScope, statusParallelism, backendType, gitConfigScope, networkFileSystem, versionCache,
+                sharedCacheDirectory, sharedCacheMaxSize, windowCacheConfig, windowCacheIdleLimit, timeBudgets);
     }
 
     private static VersionFormatDescription defaultBranchVersionFormat() {
@@ -95,6 +155,101 @@ public class VersioningConfigurationProvider {
         return new VersionFormatDescription(".*", "", "${commit}");
     }
 
+    private static StatusScope parseStatusScope(String statusScope) {
+        try {
+            return StatusScope.valueOf(statusScope.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid status scope '" + statusScope + "', expected one of "
+                    + Arrays.toString(StatusScope.values()).toLowerCase(), e);
+        }
+    }
+
+    private static GitBackendType parseBackendType(String backendType) {
+        try {
+            return GitBackendType.valueOf(backendType.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid backend '" + backendType + "', expected one of "
+                    + Arrays.toString(GitBackendType.values()).toLowerCase(), e);
+        }
+    }
+
+    private static GitConfigScope parseGitConfigScope(String gitConfigScope) {
+        try {
+            return GitConfigScope.valueOf(gitConfigScope.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid git config scope '" + gitConfigScope + "', expected one of "
+                    + Arrays.toString(GitConfigScope.values()).toLowerCase(), e);
+        }
+    }
+
+    /**
+     * @return absolute directory, <code>~/.m2/git-versioning-cache</code> if not configured
+     */
+    static File parseSharedCacheDirectory(String directory) {
+        if (directory == null || directory.trim().isEmpty()) {
+            return new File(System.getProperty("user.home"), ".m2/git-versioning-cache");
+        }
+        File sharedCacheDirectory = new File(directory.trim());
+        if (!sharedCacheDirectory.isAbsolute()) {
+            throw new IllegalArgumentException("invalid shared cache directory '" + directory + "', expected absolute path");
+        }
+        return sharedCacheDirectory;
+    }
+
+    /**
+     * Values are parsed like the corresponding <code>core.*</code> git config values, e.g. sizes may have a <code>k</code>, <code>m</code> or <code>g</code> suffix.
+     *
+     * @return window cache config, null if no value is configured
+     */
+    static WindowCacheConfig parseWindowCacheConfig(Configuration configurationModel) {
+        Config config = new Config();
+        setCoreValue(config, "packedGitMMAP", configurationModel.packedGitMMAP);
+        setCoreValue(config, "packedGitWindowSize", configurationModel.packedGitWindowSize);
+        setCoreValue(config, "packedGitLimit", configurationModel.packedGitLimit);
+        setCoreValue(config, "packedGitOpenFiles", configurationModel.packedGitOpenFiles);
+        setCoreValue(config, "deltaBaseCacheLimit", configurationModel.deltaBaseCacheLimit);
+        if (config.getNames(ConfigConstants.CONFIG_CORE_SECTION).isEmpty()) {
+            return null;
+        }
+        try {
+            return new WindowCacheConfig().fromConfig(config);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid window cache config - " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return size in bytes, parsed like git config sizes, e.g. <code>64m</code>
+     */
+    static long parseByteSize(String name, String size) {
+        Config config = new Config();
+        config.setString(ConfigConstants.CONFIG_CORE_SECTION, null, "size", size.trim());
+        try {
+            long bytes = config.getLong(ConfigConstants.CONFIG_CORE_SECTION, "size", -1);
+            if (bytes < 0) {
+                throw new IllegalArgumentException("negative size");
+            }
+            return bytes;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid " + name + " '" + size + "'", e);
+        }
+    }
+
+    private static void putTimeBudget(Map<GitPhase, Long> timeBudgets, GitPhase phase, Long timeBudget) {
+        if (timeBudget != null) {
+            if (timeBudget <= 0) {
+                throw new IllegalArgumentException("invalid " + phase.name().toLowerCase() + " time budget '" + timeBudget + "', expected milliseconds > 0");
+            }
+            timeBudgets.put(phase, timeBudget);
+        }
+    }
+
+    private static void setCoreValue(Config config, String name, String value) {
+        if (value != null) {
+            config.setString(ConfigConstants.CONFIG_CORE_SECTION, null, name, value.trim());
+        }
+    }
+
     private Configuration loadConfiguration(File configFile) {
         try {
             logger.debug("load config from " + configFile);
@@ -24,4 +24,76 @@ public class Configuration {
     @Element(name = "versionFormat")
     public String commitVersionFormat;
 
+    @Path("status")
+    @Element(name = "scope", required = false)
+    public String statusScope;
+
+    @Path("status")
+    @Element(name = "parallelism", required = false)
+    public Integer statusParallelism;
+
+    @Element(name = "backend", required = false)
+    public String backend;
+
+    @Element(name = "gitConfigScope", required = false)
+    public String gitConfigScope;
+
+    @Element(name = "networkFileSystem", required = false)
+    public Boolean networkFileSystem;
+
+    @Element(name = "versionCache", required = false)
+    public Boolean versionCache;
+
+    @Path("sharedCache")
+    @Element(name = "enabled", required = false)
+    public Boolean sharedCacheEnabled;
+
+    @Path("sharedCache")
+    @Element(name = "directory", required = false)
+    public String sharedCacheDirectory;
+
+    @Path("sharedCache")
+    @Element(name = "maxSize", required = false)
+    public String sharedCacheMaxSize;
+
+    @Path("windowCache")
+    @Element(name = "packedGitMMAP", required = false)
+    public String packedGitMMAP;
+
+    @Path("windowCache")
+    @Element(name = "packedGitWindowSize", required = false)
+    public String packedGitWindowSize;
+
+    @Path("windowCache")
+    @Element(name = "packedGitLimit", required = false)
+    public String packedGitLimit;
+
+    @Path("windowCache")
+    @Element(name = "packedGitOpenFiles", required = false)
+    public String packedGitOpenFiles;
+
+    @Path("windowCache")
+    @Element(name = "deltaBaseCacheLimit", required = false)
+    public String deltaBaseCacheLimit;
+
+    @Path("windowCache")
+    @Element(name = "idleLimit", required = false)
+    public String windowCacheIdleLimit;
+
+    @Path("timeBudget")
+    @Element(name = "discovery", required = false)
+    public Long discoveryTimeBudget;
+
+    @Path("timeBudget")
+    @Element(name = "head", required = false)
+    public Long headTimeBudget;
+
+    @Path("timeBudget")
+    @Element(name = "tags", required = false)
+    public Long tagsTimeBudget;
+
+    @Path("timeBudget")
+    @Element(name = "status", required = false)
+    public Long statusTimeBudget;
+
 }
@@ -0,0 +1,230 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class FsMonitorStatusEngineTest {
+
+    // stand-in fsmonitor hook, reports paths listed in .git/fsmonitor-changed
+    private static final String HOOK = "#!/bin/sh\n"
+            + "printf 'token-%s\\0' \"$(date +%s%N)\"\n"
+            + "[ -f .git/fsmonitor-changed ] && tr '\\n' '\\0' < .git/fsmonitor-changed\n"
+            + "exit 0\n";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(nativeGit("--version") == 0);
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        writeFile(".gitignore", "target/\n");
+        writeFile("src/main/App.java", "class App {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+
+        File hook = new File(git.getRepository().getDirectory(), "fsmonitor-hook");
+        Files.write(hook.toPath(), HOOK.getBytes(StandardCharsets.UTF_8));
+        assertThat(hook.setExecutable(true)).isTrue();
+        assertThat(nativeGit("config", "core.fsmonitor", ".git/fsmonitor-hook")).isEqualTo(0);
+        assertThat(nativeGit("config", "core.untrackedCache", "true")).isEqualTo(0);
+        assertThat(nativeGit("update-index", "--fsmonitor", "--untracked-cache")).isEqualTo(0);
+        // first status refreshes racily clean entries, second one marks them as fsmonitor valid
+        assertThat(nativeGit("status")).isEqualTo(0);
+        assertThat(nativeGit("status")).isEqualTo(0);
+    }
+
+    @After
+    public void tearDown() {
+        if (git != null) {
+            git.close();
+        }
+    }
+
+    @Test
+    public void isClean_clean() throws Exception {
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(true);
+    }
+
+    @Test
+    public void isClean_modified_reported() throws Exception {
+        // GIVEN
+        writeFile("src/main/App.java", "class App { }");
+        reportChanged("src/main/App.java");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(false);
+    }
+
+    @Test
+    public void isClean_modified_notReported() throws Exception {
+        // GIVEN
+        writeFile("src/main/App.java", "class App { }");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(true);
+    }
+
+    @Test
+    public void isClean_untracked_reported() throws Exception {
+        // GIVEN
+        writeFile("src/test/AppTest.java", "class AppTest {}");
+        reportChanged("src/test/AppTest.java");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+        Optional<Boolean> cleanExcludingUntracked = FsMonitorStatusEngine.isClean(git.getRepository(), false, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(false);
+        assertThat(cleanExcludingUntracked).contains(true);
+    }
+
+    @Test
+    public void isClean_untracked_cached() throws Exception {
+        // GIVEN
+        writeFile("src/test/AppTest.java", "class AppTest {}");
+        assertThat(nativeGit("status")).isEqualTo(0);
+        // untracked cache is written by first status after directory has been invalidated
+        reportChanged("src/test/AppTest.java");
+        assertThat(nativeGit("status")).isEqualTo(0);
+        reportChanged();
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(false);
+    }
+
+    @Test
+    public void isClean_staged() throws Exception {
+        // GIVEN
+        writeFile("README.md", "readme");
+        // JGit does not preserve fsmonitor index extension
+        assertThat(nativeGit("add", "README.md")).isEqualTo(0);
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), false, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(false);
+    }
+
+    @Test
+    public void isClean_everythingReported() throws Exception {
+        // GIVEN
+        reportChanged("/");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).isEmpty();
+    }
+
+    @Test
+    public void isClean_infoExcludeChanged() throws Exception {
+        // GIVEN
+        writeFile(".git/info/exclude", "*.log\n");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).isEmpty();
+    }
+
+    @Test
+    public void isClean_gitignoreChanged_notReported() throws Exception {
+        // GIVEN
+        writeFile(".gitignore", "target/\n*.log\n");
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).isEmpty();
+    }
+
+    @Test
+    public void isClean_excludesFileChanged() throws Exception {
+        // GIVEN
+        writeFile(".git/global-ignore", "*.log\n");
+        assertThat(nativeGit("config", "core.excludesFile", ".git/global-ignore")).isEqualTo(0);
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).isEmpty();
+    }
+
+    @Test
+    public void isClean_hookKeepsOutputOpen() throws Exception {
+        // GIVEN
+        // background process inherits hook output and outlives the hook
+        writeFile(".git/fsmonitor-hook", HOOK.replace("exit 0\n", "sleep 30 &\nexit 0\n"));
+
+        // WHEN
+        long start = System.nanoTime();
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).contains(true);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void isClean_noHook() throws Exception {
+        // GIVEN
+        assertThat(nativeGit("config", "--unset", "core.fsmonitor")).isEqualTo(0);
+
+        // WHEN
+        Optional<Boolean> clean = FsMonitorStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL);
+
+        // THEN
+        assertThat(clean).isEmpty();
+    }
+
+    private void reportChanged(String... paths) throws IOException {
+        writeFile(".git/fsmonitor-changed", String.join("\n", paths) + (paths.length > 0 ? "\n" : ""));
+    }
+
+    private int nativeGit(String... args) throws Exception {
+        return NativeGit.run(tempFolder.getRoot(), args);
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.deleteDirectory;
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.measure;
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.writeFiles;
+
+/**
+ * Compares {@link JGitBackend} with {@link NativeGitBackend} on the synthetic repositories
+ * of {@link GitStatusBenchmark} and {@link GitTagIndexBenchmark}.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... GitBackendBenchmark [directory] [files]</code>
+ */
+public class GitBackendBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File baseDirectory = new File(args.length > 0 ? args[0] : "target/backend-benchmark");
+        int files = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        List<GitBackend> backends = Arrays.asList(new JGitBackend(new ConsoleLogger()), new NativeGitBackend());
+
+        File statusDirectory = new File(baseDirectory, "status");
+        try (Git git = GitStatusBenchmark.createRepository(statusDirectory, files)) {
+            // native git compares all stat data, JGit only records size and modification time
+            nativeGit(statusDirectory, "update-index", "--refresh");
+            File untrackedDirectory = new File(statusDirectory, "module-0/target");
+            deleteDirectory(untrackedDirectory);
+            try (PooledRepository repository = new PooledRepository(git.getRepository().getDirectory(), statusDirectory)) {
+                System.out.println("--- clean working tree, " + files + " tracked files");
+                benchmarkStatus(repository, backends);
+
+                writeFiles(untrackedDirectory, files / 2);
+                System.out.println("--- dirty working tree, " + files / 2 + " untracked files");
+                benchmarkStatus(repository, backends);
+            }
+        }
+
+        File tagsDirectory = new File(baseDirectory, "tags");
+        deleteDirectory(tagsDirectory);
+        try (Git git = GitTagIndexBenchmark.createRepository(tagsDirectory, 10_000)) {
+            System.out.println("--- HEAD, 10000 annotated tags");
+            for (GitBackend backend : backends) {
+                String name = backend.getClass().getSimpleName();
+                // new handle per build, stored tag index of JGit backend is reused
+                measure(name + " readHead", () -> {
+                    try (PooledRepository repository = new PooledRepository(git.getRepository().getDirectory(), tagsDirectory)) {
+                        return backend.readHead(repository, GitTagIndex.ALL_TAGS).getTags();
+                    }
+                });
+                measure(name + " readHead no tags", () -> {
+                    try (PooledRepository repository = new PooledRepository(git.getRepository().getDirectory(), tagsDirectory)) {
+                        return backend.readHead(repository, null).getBranch();
+                    }
+                });
+            }
+        }
+    }
+
+    private static void benchmarkStatus(PooledRepository repository, List<GitBackend> backends) throws Exception {
+        for (GitBackend backend : backends) {
+            String name = backend.getClass().getSimpleName();
+            measure(name + " status", () -> backend.isWorkingTreeClean(repository, true, new StatusPaths(), 1));
+            measure(name + " status tracked", () -> backend.isWorkingTreeClean(repository, false, new StatusPaths(), 1));
+        }
+    }
+
+    static void nativeGit(File directory, String... args) throws Exception {
+        NativeGit.run(directory, args);
+    }
+}
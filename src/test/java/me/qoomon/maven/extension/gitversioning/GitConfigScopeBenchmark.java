@@ -0,0 +1,43 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitConfigScope;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.measure;
+
+/**
+ * Measures repository open of each {@link GitConfigScope}.
+ * <p>
+ * {@link GitConfigScope#SYSTEM} is measured with a new {@link FS} per open, like the first open of a build JVM,
+ * later opens reuse system config location discovered by {@link FS#DETECTED}.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... GitConfigScopeBenchmark [directory]</code>
+ */
+public class GitConfigScopeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(args.length > 0 ? args[0] : "target/config-scope-benchmark");
+        try (Git git = GitStatusBenchmark.createRepository(directory, 10)) {
+            File gitDir = git.getRepository().getDirectory();
+
+            measure("system (first open)", () -> {
+                try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true)
+                        .setFS(FS.detect()).build()) {
+                    return repository.getConfig().getString("core", null, "excludesFile");
+                }
+            });
+            for (GitConfigScope configScope : GitConfigScope.values()) {
+                measure(configScope.name().toLowerCase(), () -> {
+                    try (Repository repository = PooledRepository.openRepository(gitDir, configScope)) {
+                        return repository.getConfig().getString("core", null, "excludesFile");
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitDirResolverTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void resolve() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.newFolder("project");
+        Git.init().setDirectory(workTree).call().close();
+        File moduleDirectory = new File(workTree, "module/sub-module");
+        moduleDirectory.mkdirs();
+        GitDirResolver resolver = new GitDirResolver(Collections.emptyList());
+
+        // WHEN
+        Optional<File> gitDir = resolver.resolve(moduleDirectory);
+
+        // THEN
+        assertThat(gitDir).contains(new File(workTree, ".git").getCanonicalFile());
+    }
+
+    @Test
+    public void resolve_siblingDirectoryFromCache() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.newFolder("project");
+        Git.init().setDirectory(workTree).call().close();
+        File moduleDirectory = new File(workTree, "module/module-a");
+        File siblingDirectory = new File(workTree, "module/module-b");
+        moduleDirectory.mkdirs();
+        siblingDirectory.mkdirs();
+        GitDirResolver resolver = new GitDirResolver(Collections.emptyList());
+        Optional<File> moduleGitDir = resolver.resolve(moduleDirectory);
+        // intermediate directories are known, git directory is not probed again
+        new File(workTree, ".git").renameTo(new File(workTree, ".git-moved"));
+
+        // WHEN
+        Optional<File> siblingGitDir = resolver.resolve(siblingDirectory);
+
+        // THEN
+        assertThat(siblingGitDir).isEqualTo(moduleGitDir);
+    }
+
+    @Test
+    public void resolve_gitFile() throws Exception {
+        // GIVEN
+        File gitDir = tempFolder.newFolder("separate.git");
+        File workTree = tempFolder.newFolder("project");
+        Git.init().setGitDir(gitDir).setDirectory(workTree).call().close();
+        Files.write(new File(workTree, ".git").toPath(), ("gitdir: " + gitDir.getAbsolutePath()).getBytes());
+        GitDirResolver resolver = new GitDirResolver(Collections.emptyList());
+
+        // WHEN
+        Optional<File> resolvedGitDir = resolver.resolve(workTree);
+
+        // THEN
+        assertThat(resolvedGitDir).contains(gitDir.getCanonicalFile());
+    }
+
+    @Test
+    public void resolve_ceilingDirectory() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.newFolder("project");
+        Git.init().setDirectory(workTree).call().close();
+        File ceilingDirectory = new File(workTree, "module");
+        File moduleDirectory = new File(ceilingDirectory, "sub-module");
+        moduleDirectory.mkdirs();
+        GitDirResolver resolver = new GitDirResolver(Collections.singletonList(ceilingDirectory));
+
+        // WHEN
+        Optional<File> gitDir = resolver.resolve(moduleDirectory);
+
+        // THEN
+        assertThat(gitDir).isEmpty();
+    }
+
+    @Test
+    public void parseCeilingDirectories() {
+        // GIVEN
+        String ceilingDirectories = String.join(File.pathSeparator,
+                new File("/mnt/nfs").getAbsolutePath(), "", "relative/path", new File("/home").getAbsolutePath());
+
+        // WHEN
+        List<File> directories = GitDirResolver.parseCeilingDirectories(ceilingDirectories);
+
+        // THEN
+        assertThat(directories).containsExactly(new File("/mnt/nfs").getAbsoluteFile(), new File("/home").getAbsoluteFile());
+    }
+}
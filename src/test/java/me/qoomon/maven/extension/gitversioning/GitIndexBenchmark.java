@@ -0,0 +1,129 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.measure;
+
+/**
+ * Compares {@link GitIndexFile} with JGit's {@link DirCache} on a large synthetic index file.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... GitIndexBenchmark [index file] [entries]</code>
+ */
+public class GitIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File indexFile = new File(args.length > 0 ? args[0] : "target/index-benchmark/index");
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        if (!indexFile.exists()) {
+            createIndex(indexFile, entries);
+        }
+        System.out.println("--- index file of " + indexFile.length() / 1024 / 1024 + " MB, " + entries + " entries");
+
+        measureHeap("DirCache read", () -> DirCache.read(indexFile, FS.DETECTED));
+        measureAllocation("DirCache read", () -> DirCache.read(indexFile, FS.DETECTED).getEntryCount());
+        measureAllocation("GitIndexFile scan", () -> scan(indexFile));
+
+        measure("DirCache read", () -> DirCache.read(indexFile, FS.DETECTED).getEntryCount());
+        measure("GitIndexFile scan", () -> scan(indexFile));
+        measure("DirCacheIterator walk", () -> walk(new DirCacheIterator(DirCache.read(indexFile, FS.DETECTED))));
+        measure("GitIndexIterator walk", () -> {
+            try (GitIndexFile index = GitIndexFile.open(indexFile)) {
+                return walk(new GitIndexIterator(index));
+            }
+        });
+    }
+
+    private static int scan(File indexFile) throws Exception {
+        try (GitIndexFile index = GitIndexFile.open(indexFile)) {
+            GitIndexFile.EntryCursor entryCursor = index.entries();
+            int count = 0;
+            while (entryCursor.next()) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static int walk(AbstractTreeIterator iterator) throws Exception {
+        try (TreeWalk treeWalk = new TreeWalk((ObjectReader) null)) {
+            treeWalk.addTree(iterator);
+            treeWalk.setRecursive(true);
+            int count = 0;
+            while (treeWalk.next()) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Measures heap retained by result of <code>action</code>.
+     */
+    private static void measureHeap(String name, Callable<?> action) throws Exception {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        Object result = action.call();
+        long duration = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+        System.out.printf("%-30s %8d ms (cold) %8d KB retained heap -> %s%n", name, duration / 1_000_000,
+                (heapAfter - heapBefore) / 1024, result.getClass().getSimpleName());
+    }
+
+    /**
+     * Measures heap allocated by <code>action</code>, whether retained or not.
+     */
+    private static void measureAllocation(String name, Callable<?> action) throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        Object result = action.call();
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-30s %8d KB allocated heap -> %s%n", name, allocated / 1024, result);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void createIndex(File indexFile, int entries) throws Exception {
+        if (!indexFile.getParentFile().mkdirs() && !indexFile.getParentFile().isDirectory()) {
+            throw new IllegalStateException("can not create " + indexFile.getParentFile());
+        }
+        DirCache dirCache = DirCache.lock(indexFile, FS.DETECTED);
+        DirCacheBuilder dirCacheBuilder = dirCache.builder();
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            for (int i = 0; i < entries; i++) {
+                String path = "module-" + (i % 100) + "/src/main/java/p" + (i % 37) + "/File" + i + ".java";
+                byte[] content = ("class File" + i + " {}").getBytes(StandardCharsets.UTF_8);
+                DirCacheEntry entry = new DirCacheEntry(path);
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setLength(content.length);
+                entry.setLastModified(System.currentTimeMillis());
+                entry.setObjectId(formatter.idFor(Constants.OBJ_BLOB, content));
+                dirCacheBuilder.add(entry);
+            }
+        }
+        dirCacheBuilder.commit();
+    }
+}
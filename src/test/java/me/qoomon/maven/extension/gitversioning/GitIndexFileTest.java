@@ -0,0 +1,230 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.Assume.assumeTrue;
+
+public class GitIndexFileTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        writeFile("README.md", "readme");
+        writeFile("pom.xml", "<project/>");
+        writeFile("src/main/java/App.java", "class App {}");
+        writeFile("src/main/java/app/Service.java", "class Service {}");
+        writeFile("src/main/resources/application.properties", "a=b");
+        writeFile("src/test/java/AppTest.java", "class AppTest {}");
+        // sorted before src/ in index and tree order
+        writeFile("src.txt", "src");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void entries() throws Exception {
+        // WHEN
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+
+            // THEN
+            assertThat(index.getVersion()).isEqualTo(2);
+            assertEntriesEqual(index, git.getRepository().readDirCache());
+        }
+    }
+
+    @Test
+    public void entries_largerThanReadBuffer() throws Exception {
+        // GIVEN
+        assumeTrue(nativeGit("--version") == 0);
+        for (int i = 0; i < 2000; i++) {
+            writeFile("src/main/java/" + "long-package-name/".substring(0, i % 17) + "File" + i + ".java", "class File" + i + " {}");
+        }
+        git.add().addFilepattern(".").call();
+        DirCache dirCache = git.getRepository().readDirCache();
+        assertThat(git.getRepository().getIndexFile().length()).isGreaterThan(2 * 64 * 1024);
+        assertThat(nativeGit("update-index", "--index-version", "4")).isEqualTo(0);
+        // writes cache tree extension after entries
+        assertThat(nativeGit("write-tree")).isEqualTo(0);
+
+        // WHEN
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+
+            // THEN
+            assertEntriesEqual(index, dirCache);
+            assertThat(index.getExtension("TREE")).isNotNull();
+        }
+    }
+
+    @Test
+    public void entries_version4() throws Exception {
+        // GIVEN
+        assumeTrue(nativeGit("--version") == 0);
+        // JGit can not read index version 4
+        DirCache dirCache = git.getRepository().readDirCache();
+        assertThat(nativeGit("update-index", "--index-version", "4")).isEqualTo(0);
+
+        // WHEN
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+
+            // THEN
+            assertThat(index.getVersion()).isEqualTo(4);
+            assertEntriesEqual(index, dirCache);
+        }
+    }
+
+    @Test
+    public void entries_skipWorkTree() throws Exception {
+        // GIVEN
+        assumeTrue(nativeGit("--version") == 0);
+        assertThat(nativeGit("update-index", "--skip-worktree", "src/main/java/App.java")).isEqualTo(0);
+
+        // WHEN
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+
+            // THEN
+            assertThat(index.getVersion()).isEqualTo(3);
+            GitIndexFile.EntryCursor entryCursor = index.entries();
+            List<String> skipWorkTreePaths = new ArrayList<>();
+            while (entryCursor.next()) {
+                if (entryCursor.isSkipWorkTree()) {
+                    skipWorkTreePaths.add(entryCursor.getPathString());
+                }
+            }
+            assertThat(skipWorkTreePaths).containsExactly("src/main/java/App.java");
+            assertEntriesEqual(index, git.getRepository().readDirCache());
+        }
+    }
+
+    @Test
+    public void open_splitIndex() throws Exception {
+        // GIVEN
+        assumeTrue(nativeGit("--version") == 0);
+        assertThat(nativeGit("update-index", "--split-index")).isEqualTo(0);
+
+        // WHEN
+        Throwable thrown = catchThrowable(() -> GitIndexFile.open(git.getRepository().getIndexFile()));
+
+        // THEN
+        assertThat(thrown).isInstanceOf(GitIndexFile.UnsupportedExtensionException.class)
+                .hasMessageContaining("'link'");
+    }
+
+    @Test
+    public void iterator() throws Exception {
+        // GIVEN
+        writeCacheTree();
+        DirCache dirCache = git.getRepository().readDirCache();
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+
+            // WHEN
+            List<String> entries = walk(new GitIndexIterator(index));
+
+            // THEN
+            assertThat(entries).isEqualTo(walk(new DirCacheIterator(dirCache)));
+            assertThat(entries).contains("src/main/java/app " + index.getCacheTreeId("src/main/java/app").name());
+        }
+    }
+
+    @Test
+    public void iterator_subtree() throws Exception {
+        // GIVEN
+        try (GitIndexFile index = GitIndexFile.open(git.getRepository().getIndexFile())) {
+            GitIndexIterator rootIterator = new GitIndexIterator(index);
+            while (!rootIterator.getEntryPathString().equals("src")) {
+                rootIterator.next(1);
+            }
+
+            // WHEN
+            List<String> entries = walk(rootIterator.createRootIteratorOfSubtree());
+
+            // THEN
+            assertThat(entries).isNotEmpty().allMatch(entry -> entry.startsWith("src ") || entry.startsWith("src/"));
+            rootIterator.next(1);
+            assertThat(rootIterator.eof()).isTrue();
+        }
+    }
+
+    private void writeCacheTree() throws IOException {
+        DirCache dirCache = git.getRepository().lockDirCache();
+        try (ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            dirCache.writeTree(inserter);
+            dirCache.write();
+            dirCache.commit();
+        } finally {
+            dirCache.unlock();
+        }
+    }
+
+    private List<String> walk(AbstractTreeIterator iterator) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            treeWalk.addTree(iterator);
+            while (treeWalk.next()) {
+                entries.add(treeWalk.getPathString() + " " + treeWalk.getObjectId(0).name());
+                if (treeWalk.isSubtree() && !treeWalk.getPathString().startsWith("src/test")) {
+                    treeWalk.enterSubtree();
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void assertEntriesEqual(GitIndexFile index, DirCache dirCache) {
+        assertThat(index.getEntryCount()).isEqualTo(dirCache.getEntryCount());
+        GitIndexFile.EntryCursor entryCursor = index.entries();
+        byte[] objectId = new byte[20];
+        for (int i = 0; i < dirCache.getEntryCount(); i++) {
+            DirCacheEntry dirCacheEntry = dirCache.getEntry(i);
+            assertThat(entryCursor.next()).isTrue();
+            assertThat(entryCursor.getPathString()).isEqualTo(dirCacheEntry.getPathString());
+            assertThat(entryCursor.getStage()).isEqualTo(dirCacheEntry.getStage());
+            assertThat(entryCursor.getRawMode()).isEqualTo(dirCacheEntry.getRawMode());
+            assertThat(entryCursor.getLastModified()).isEqualTo(dirCacheEntry.getLastModified());
+            assertThat(entryCursor.isSkipWorkTree()).isEqualTo(dirCacheEntry.isSkipWorkTree());
+            entryCursor.copyRawObjectId(objectId, 0);
+            assertThat(ObjectId.fromRaw(objectId)).isEqualTo(dirCacheEntry.getObjectId());
+        }
+        assertThat(entryCursor.next()).isFalse();
+    }
+
+    private int nativeGit(String... args) throws Exception {
+        return NativeGit.run(tempFolder.getRoot(), args);
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,137 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitPeeledTagCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void save() throws Exception {
+        // GIVEN
+        GitPeeledTagCache peeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+        ObjectId tagId = ObjectId.fromString("1111111111111111111111111111111111111111");
+        ObjectId commitId = ObjectId.fromString("2222222222222222222222222222222222222222");
+        peeledTags.put(tagId, commitId);
+
+        // WHEN
+        peeledTags.save();
+
+        // THEN
+        GitPeeledTagCache loadedPeeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+        assertThat(loadedPeeledTags.size()).isEqualTo(1);
+        assertThat(loadedPeeledTags.get(tagId)).isEqualTo(commitId);
+        assertThat(loadedPeeledTags.get(commitId)).isNull();
+    }
+
+    @Test
+    public void save_maxEntries() throws Exception {
+        // GIVEN
+        GitPeeledTagCache peeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+        for (int i = 0; i < GitPeeledTagCache.MAX_ENTRIES; i++) {
+            peeledTags.put(objectId(i), ObjectId.zeroId());
+        }
+        peeledTags.save();
+        peeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+        peeledTags.get(objectId(0));
+        peeledTags.put(objectId(GitPeeledTagCache.MAX_ENTRIES), ObjectId.zeroId());
+
+        // WHEN
+        peeledTags.save();
+
+        // THEN
+        GitPeeledTagCache loadedPeeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+        assertThat(loadedPeeledTags.size()).isEqualTo(GitPeeledTagCache.MAX_ENTRIES);
+        assertThat(loadedPeeledTags.get(objectId(0))).isNotNull();
+        assertThat(loadedPeeledTags.get(objectId(GitPeeledTagCache.MAX_ENTRIES))).isNotNull();
+        // least recently used entry is evicted
+        assertThat(loadedPeeledTags.get(objectId(GitPeeledTagCache.MAX_ENTRIES - 1))).isNull();
+    }
+
+    @Test
+    public void load_corruptCacheFile() throws Exception {
+        // GIVEN
+        File cacheFile = new File(git.getRepository().getDirectory(), "git-versioning/peeled-tags");
+        cacheFile.getParentFile().mkdirs();
+        Files.write(cacheFile.toPath(), new byte[]{0x50, 0x54, 0x43, 0x01, 0, 0, 0, 1, 42});
+
+        // WHEN
+        GitPeeledTagCache peeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+
+        // THEN
+        assertThat(peeledTags.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void load_corruptEntryCount() throws Exception {
+        // GIVEN
+        File cacheFile = new File(git.getRepository().getDirectory(), "git-versioning/peeled-tags");
+        cacheFile.getParentFile().mkdirs();
+        Files.write(cacheFile.toPath(), new byte[]{0x50, 0x54, 0x43, 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+
+        // WHEN
+        GitPeeledTagCache peeledTags = GitPeeledTagCache.load(git.getRepository().getDirectory());
+
+        // THEN
+        assertThat(peeledTags.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void tagIndex_usesCache() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        Ref tag = git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            GitTagIndexStore.load(GitRefFiles.open(git.getRepository().getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS);
+        }
+        // neither stored index nor tag object available anymore
+        Files.delete(new File(git.getRepository().getDirectory(), "git-versioning/tag-index").toPath());
+        String tagId = tag.getObjectId().name();
+        Files.delete(new File(git.getRepository().getDirectory(),
+                "objects/" + tagId.substring(0, 2) + "/" + tagId.substring(2)).toPath());
+
+        // WHEN
+        GitTagIndex tagIndex;
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            tagIndex = GitTagIndexStore.load(GitRefFiles.open(git.getRepository().getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS);
+        }
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+    }
+
+    private static ObjectId objectId(int i) {
+        // hashed, object id maps distribute by leading bytes
+        return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+    }
+}
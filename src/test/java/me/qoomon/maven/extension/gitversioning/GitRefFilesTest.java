@@ -0,0 +1,274 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitRefFilesTest {
+
+    private static final String TAG_ID = "1111111111111111111111111111111111111111";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+    private RevCommit commit;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void readHead_branch() throws Exception {
+        // GIVEN
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        Ref head = refFiles.readHead();
+
+        // THEN
+        assertThat(head.isSymbolic()).isTrue();
+        assertThat(head.getTarget().getName()).isEqualTo("refs/heads/master");
+        assertThat(head.getObjectId()).isEqualTo(commit);
+    }
+
+    @Test
+    public void readHead_packedBranch() throws Exception {
+        // GIVEN
+        writePackedRefs(true, commit.name() + " refs/heads/master\n");
+        Files.delete(gitFile("refs/heads/master").toPath());
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        Ref head = refFiles.readHead();
+
+        // THEN
+        assertThat(head.getTarget().getStorage()).isEqualTo(Ref.Storage.PACKED);
+        assertThat(head.getObjectId()).isEqualTo(commit);
+    }
+
+    @Test
+    public void readHead_unbornBranch() throws Exception {
+        // GIVEN
+        Files.write(gitFile(Constants.HEAD).toPath(), "ref: refs/heads/main\n".getBytes(StandardCharsets.UTF_8));
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        Ref head = refFiles.readHead();
+
+        // THEN
+        assertThat(head.getTarget().getName()).isEqualTo("refs/heads/main");
+        assertThat(head.getObjectId()).isNull();
+    }
+
+    @Test
+    public void readHead_detached() throws Exception {
+        // GIVEN
+        Files.write(gitFile(Constants.HEAD).toPath(), (commit.name() + "\n").getBytes(StandardCharsets.UTF_8));
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        Ref head = refFiles.readHead();
+
+        // THEN
+        assertThat(head.isSymbolic()).isFalse();
+        assertThat(head.getObjectId()).isEqualTo(commit);
+    }
+
+    @Test
+    public void getRefsByPrefix_sortedPackedRefs() throws Exception {
+        // GIVEN
+        writePackedRefs(true,
+                commit.name() + " refs/heads/master\n"
+                        + commit.name() + " refs/tags/build/1\n"
+                        + TAG_ID + " refs/tags/v1.0.0\n"
+                        + "^" + commit.name() + "\n"
+                        + commit.name() + " refs/tags/v2.0.0\n"
+                        + commit.name() + " refs/tags/w1.0.0\n");
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        List<Ref> refs = refFiles.getRefsByPrefix("refs/tags/v");
+
+        // THEN
+        assertThat(refFiles.getPackedRefs().isSorted()).isTrue();
+        assertThat(names(refs)).containsExactly("refs/tags/v1.0.0", "refs/tags/v2.0.0");
+        assertThat(refs.get(0).getObjectId().name()).isEqualTo(TAG_ID);
+        assertThat(refs.get(0).getPeeledObjectId()).isEqualTo(commit);
+        assertThat(refs.get(1).isPeeled()).isTrue();
+        assertThat(refs.get(1).getPeeledObjectId()).isNull();
+        assertThat(refFiles.exactRef("refs/tags/w1.0.0").getObjectId()).isEqualTo(commit);
+        assertThat(refFiles.exactRef("refs/tags/v1")).isNull();
+        assertThat(refFiles.exactRef("refs/tags/x")).isNull();
+    }
+
+    @Test
+    public void getRefsByPrefix_unsortedPackedRefs() throws Exception {
+        // GIVEN
+        writePackedRefs(false,
+                commit.name() + " refs/tags/v2.0.0\n"
+                        + TAG_ID + " refs/tags/v1.0.0\n"
+                        + commit.name() + " refs/heads/master\n");
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        List<Ref> refs = refFiles.getRefsByPrefix("refs/tags/");
+
+        // THEN
+        assertThat(refFiles.getPackedRefs().isSorted()).isFalse();
+        assertThat(names(refs)).containsExactly("refs/tags/v1.0.0", "refs/tags/v2.0.0");
+        // not peeled without peeled trait
+        assertThat(refs.get(0).isPeeled()).isFalse();
+        assertThat(refFiles.exactRef("refs/tags/v2.0.0").getObjectId()).isEqualTo(commit);
+    }
+
+    @Test
+    public void getRefsByPrefix_looseRefsPrecedence() throws Exception {
+        // GIVEN
+        writePackedRefs(true, TAG_ID + " refs/tags/v1.0.0\n");
+        git.tag().setName("v1.0.0").setAnnotated(false).setForceUpdate(true).call();
+        git.tag().setName("release/1.0.0").setAnnotated(false).call();
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory());
+
+        // WHEN
+        List<Ref> refs = refFiles.getRefsByPrefix("refs/tags/");
+
+        // THEN
+        assertThat(names(refs)).containsExactly("refs/tags/release/1.0.0", "refs/tags/v1.0.0");
+        assertThat(refs.get(1).getStorage()).isEqualTo(Ref.Storage.LOOSE);
+        assertThat(refs.get(1).getObjectId()).isEqualTo(commit);
+    }
+
+    @Test
+    public void open_linkedWorkTree() throws Exception {
+        // GIVEN
+        File workTreeGitDir = gitFile("worktrees/other");
+        workTreeGitDir.mkdirs();
+        Files.write(new File(workTreeGitDir, "commondir").toPath(), "../..\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(workTreeGitDir, Constants.HEAD).toPath(), (commit.name() + "\n").getBytes(StandardCharsets.UTF_8));
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+
+        // WHEN
+        GitRefFiles refFiles = GitRefFiles.open(workTreeGitDir);
+
+        // THEN
+        assertThat(refFiles.readHead().isSymbolic()).isFalse();
+        assertThat(refFiles.readHead().getObjectId()).isEqualTo(commit);
+        assertThat(names(refFiles.getRefsByPrefix("refs/tags/"))).containsExactly("refs/tags/v1.0.0");
+    }
+
+    @Test
+    public void snapshot_slowFileSystem_readsEachRefFileOnce() throws Exception {
+        // GIVEN
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        CountingSlowFileReader fileReader = new CountingSlowFileReader();
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory(), true, fileReader);
+
+        // WHEN
+        for (int i = 0; i < 10; i++) {
+            refFiles.readHead();
+            refFiles.exactRef("refs/tags/v1.0.0");
+            refFiles.getRefsByPrefix(Constants.R_TAGS);
+        }
+
+        // THEN
+        assertThat(fileReader.reads(Constants.HEAD)).isEqualTo(1);
+        assertThat(fileReader.reads("refs/heads/master")).isEqualTo(1);
+        assertThat(fileReader.reads("refs/tags/v1.0.0")).isEqualTo(1);
+    }
+
+    @Test
+    public void snapshot_laterChangesAreNotSeen() throws Exception {
+        // GIVEN
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory(), true);
+        refFiles.readHead();
+        RevCommit nextCommit = git.commit().setMessage("next").setAllowEmpty(true).call();
+
+        // WHEN
+        Ref head = refFiles.readHead();
+
+        // THEN
+        assertThat(head.getObjectId()).isEqualTo(commit);
+        assertThat(GitRefFiles.open(git.getRepository().getDirectory(), true).readHead().getObjectId()).isEqualTo(nextCommit);
+    }
+
+    @Test
+    public void noSnapshot_slowFileSystem_readsRefFilesAgain() throws Exception {
+        // GIVEN
+        CountingSlowFileReader fileReader = new CountingSlowFileReader();
+        GitRefFiles refFiles = GitRefFiles.open(git.getRepository().getDirectory(), false, fileReader);
+
+        // WHEN
+        for (int i = 0; i < 10; i++) {
+            refFiles.readHead();
+        }
+
+        // THEN
+        assertThat(fileReader.reads(Constants.HEAD)).isEqualTo(10);
+        assertThat(fileReader.reads("refs/heads/master")).isEqualTo(10);
+    }
+
+    private void writePackedRefs(boolean sorted, String records) throws IOException {
+        String header = sorted ? "# pack-refs with: peeled fully-peeled sorted \n" : "";
+        Files.write(gitFile(Constants.PACKED_REFS).toPath(), (header + records).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private File gitFile(String path) {
+        return new File(git.getRepository().getDirectory(), path);
+    }
+
+    private static List<String> names(List<Ref> refs) {
+        return refs.stream().map(Ref::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Stand-in for a network file system, every read is a slow round trip.
+     */
+    private class CountingSlowFileReader implements GitRefFiles.FileReader {
+
+        private final Map<String, Integer> readCounts = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] read(Path file) throws IOException {
+            readCounts.merge(git.getRepository().getDirectory().toPath().relativize(file).toString()
+                    .replace(File.separatorChar, '/'), 1, Integer::sum);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return Files.readAllBytes(file);
+        }
+
+        int reads(String name) {
+            return readCounts.getOrDefault(name, 0);
+        }
+    }
+}
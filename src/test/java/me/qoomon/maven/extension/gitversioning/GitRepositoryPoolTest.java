@@ -0,0 +1,179 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitBackendType;
+import me.qoomon.maven.extension.gitversioning.config.GitConfigScope;
+import me.qoomon.maven.extension.gitversioning.config.StatusScope;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitRepositoryPoolTest {
+
+    private static final int SESSIONS = 100;
+    private static final long MAX_HEAP_GROWTH = 4 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final VersioningConfiguration configuration = new VersioningConfiguration(true, Collections.emptyList(),
+            Collections.singletonList(new VersionFormatDescription("v.*", "v", "${tag}")), new VersionFormatDescription(),
+            null, null, StatusScope.FULL, 1, GitBackendType.JGIT, GitConfigScope.SYSTEM, false, true, null, 0, null, 1024L * 1024, Collections.emptyMap());
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        for (int i = 0; i < 20; i++) {
+            Files.write(new File(tempFolder.getRoot(), "file-" + i).toPath(), ("content " + i).getBytes());
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("commit " + i).call();
+            git.tag().setName("v" + i).setAnnotated(true).setMessage("tag " + i).call();
+        }
+        // objects are read from pack files through window cache
+        git.gc().call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+        new WindowCacheConfig().install();
+    }
+
+    @Test
+    public void close() throws Exception {
+        // GIVEN
+        GitRepositoryPool repositoryPool = new GitRepositoryPool(new ConsoleLogger());
+        AtomicInteger closeCount = new AtomicInteger();
+        repositoryPool.addCloseListener(closeCount::incrementAndGet);
+        PooledRepository pooledRepository = session(repositoryPool);
+
+        // WHEN
+        repositoryPool.close();
+
+        // THEN
+        assertThat(closeCount).hasValue(1);
+        assertThat(repositoryPool.acquire(tempFolder.getRoot(), configuration)).isNotSameAs(pooledRepository);
+    }
+
+    @Test
+    public void close_cancelledStatus_awaitsStatusComputation() throws Exception {
+        // GIVEN
+        GitRepositoryPool repositoryPool = new GitRepositoryPool(new ConsoleLogger());
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean accessedAfterClose = new AtomicBoolean();
+        CountDownLatch statusStarted = new CountDownLatch(1);
+        CountDownLatch statusAccessed = new CountDownLatch(1);
+        PooledRepository pooledRepository = new PooledRepository(git.getRepository().getDirectory(), tempFolder.getRoot()) {
+            @Override
+            public Repository getRepository() {
+                if (statusStarted.getCount() > 0) {
+                    statusStarted.countDown();
+                    // status computation does not react to interruption immediately, e.g. within file I/O
+                    sleepUninterruptibly(500);
+                    accessedAfterClose.set(closed.get());
+                    statusAccessed.countDown();
+                }
+                return super.getRepository();
+            }
+        };
+        CompletableFuture<Boolean> workingTreeClean = repositoryPool.workingTreeClean(pooledRepository, configuration, new StatusPaths());
+        assertThat(statusStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // WHEN
+        workingTreeClean.cancel(true);
+        pooledRepository.close();
+        closed.set(true);
+
+        // THEN
+        assertThat(statusAccessed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(accessedAfterClose).isFalse();
+        repositoryPool.close();
+    }
+
+    @Test
+    public void close_repeatedSessions_heapStaysFlat() throws Exception {
+        // GIVEN
+        GitRepositoryPool repositoryPool = new GitRepositoryPool(new ConsoleLogger());
+        // warm up, e.g. class loading and JGit static caches
+        for (int i = 0; i < 10; i++) {
+            session(repositoryPool);
+            repositoryPool.close();
+        }
+        long heapBefore = usedHeap();
+
+        // WHEN
+        for (int i = 0; i < SESSIONS; i++) {
+            session(repositoryPool);
+            repositoryPool.close();
+        }
+
+        // THEN
+        long heapAfter = usedHeap();
+        assertThat(heapAfter - heapBefore).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    /**
+     * Simulates git usage of a build session, reads HEAD and tags, working tree status and objects from pack.
+     */
+    private PooledRepository session(GitRepositoryPool repositoryPool) throws Exception {
+        repositoryPool.configureWindowCache(configuration.getWindowCacheConfig(), configuration.getWindowCacheIdleLimit());
+
+        PooledRepository pooledRepository = repositoryPool.acquire(tempFolder.getRoot(), configuration);
+        HeadSnapshot head = repositoryPool.getBackend(configuration.getBackendType())
+                .readHead(pooledRepository, configuration.getTagPrefixes());
+        assertThat(head.getTags()).containsExactly("v19");
+        StatusPaths statusPaths = new StatusPaths();
+        statusPaths.addDirectory(tempFolder.getRoot());
+        assertThat(repositoryPool.workingTreeClean(pooledRepository, configuration, statusPaths).join()).isTrue();
+        for (RevCommit commit : Git.wrap(pooledRepository.getRepository()).log().call()) {
+            pooledRepository.getObjectReader().open(commit.getTree(), Constants.OBJ_TREE).getBytes();
+        }
+        return pooledRepository;
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        for (long remaining = millis; remaining > 0; remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) {
+            try {
+                Thread.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,91 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitSharedCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void get() throws Exception {
+        // GIVEN
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.getRoot(), 1024);
+        sharedCache.put("test", "key", "content".getBytes());
+
+        // WHEN
+        byte[] content = sharedCache.get("test", "key");
+
+        // THEN
+        assertThat(content).isEqualTo("content".getBytes());
+        assertThat(sharedCache.get("test", "otherKey")).isNull();
+        assertThat(sharedCache.get("other", "key")).isNull();
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() throws Exception {
+        // GIVEN
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.getRoot(), 250);
+        sharedCache.put("test", "a", new byte[100]);
+        sharedCache.put("test", "b", new byte[100]);
+        setLastUsed("test/a", 1000);
+        setLastUsed("test/b", 2000);
+        // a is used most recently
+        assertThat(sharedCache.get("test", "a")).isNotNull();
+
+        // WHEN
+        sharedCache.put("test", "c", new byte[100]);
+
+        // THEN
+        assertThat(sharedCache.get("test", "a")).isNotNull();
+        assertThat(sharedCache.get("test", "b")).isNull();
+        assertThat(sharedCache.get("test", "c")).isNotNull();
+    }
+
+    @Test
+    public void put_concurrent_sizeStaysBounded() throws Exception {
+        // GIVEN
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.getRoot(), 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // WHEN
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String key = "key-" + i;
+                futures.add(executor.submit(() -> sharedCache.put("test", key, new byte[100])));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // THEN
+        long size;
+        try (Stream<Path> files = Files.list(new File(tempFolder.getRoot(), "test").toPath())) {
+            size = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        assertThat(size).isBetween(100L, 1000L);
+    }
+
+    private void setLastUsed(String entry, long millis) throws Exception {
+        Files.setLastModifiedTime(new File(tempFolder.getRoot(), entry).toPath(), FileTime.fromMillis(millis));
+    }
+}
@@ -0,0 +1,153 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares {@link GitStatusEngine} with JGit's StatusCommand on a large synthetic working tree.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... GitStatusBenchmark [directory] [files]</code>
+ */
+public class GitStatusBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(args.length > 0 ? args[0] : "target/status-benchmark");
+        int files = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        try (Git git = createRepository(directory, files)) {
+            Repository repository = git.getRepository();
+            File untrackedDirectory = new File(directory, "module-0/target");
+            deleteDirectory(untrackedDirectory);
+
+            System.out.println("--- clean working tree, " + files + " tracked files");
+            benchmark(repository);
+
+            // untracked build output, not ignored
+            writeFiles(untrackedDirectory, files / 2);
+            System.out.println("--- dirty working tree, " + files / 2 + " untracked files");
+            benchmark(repository);
+        }
+    }
+
+    private static void benchmark(Repository repository) throws Exception {
+        measure("StatusCommand", () -> Git.wrap(repository).status().call().isClean());
+        measure("GitStatusEngine", () -> GitStatusEngine.isClean(repository, true, TreeFilter.ALL, 1));
+        measure("GitStatusEngine tracked only", () -> GitStatusEngine.isClean(repository, false, TreeFilter.ALL, 1));
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 2; parallelism <= Math.max(processors, 4); parallelism *= 2) {
+            final int threads = parallelism;
+            measure("GitStatusEngine parallelism " + threads, () -> GitStatusEngine.isClean(repository, true, TreeFilter.ALL, threads));
+        }
+
+        // reactor covering 5 of 100 modules
+        List<File> moduleDirectories = Arrays.asList(
+                new File(repository.getWorkTree(), "module-0"),
+                new File(repository.getWorkTree(), "module-1"),
+                new File(repository.getWorkTree(), "module-2"),
+                new File(repository.getWorkTree(), "module-3"),
+                new File(repository.getWorkTree(), "module-4"));
+        TreeFilter pathFilter = GitStatusEngine.pathFilter(repository, moduleDirectories);
+        measure("GitStatusEngine 5% of modules", () -> GitStatusEngine.isClean(repository, true, pathFilter, 1));
+    }
+
+    static void measure(String name, Callable<?> action) throws Exception {
+        // warm up
+        Object result = action.call();
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            action.call();
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        System.out.printf("%-30s %8d ms (median of %d) -> %s%n", name, durations[ITERATIONS / 2] / 1_000_000, ITERATIONS, result);
+    }
+
+    /**
+     * Creates a repository with <code>files</code> committed files, spread over 100 modules.
+     * Index and commit are built directly to keep setup time low.
+     */
+    static Git createRepository(File directory, int files) throws Exception {
+        if (new File(directory, ".git").exists()) {
+            return Git.open(directory);
+        }
+        Git git = Git.init().setDirectory(directory).call();
+        Repository repository = git.getRepository();
+        DirCache dirCache = repository.lockDirCache();
+        DirCacheBuilder dirCacheBuilder = dirCache.builder();
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            for (int i = 0; i < files; i++) {
+                String path = "module-" + (i % 100) + "/src/main/java/p" + (i % 37) + "/File" + i + ".java";
+                byte[] content = ("class File" + i + " {}").getBytes(StandardCharsets.UTF_8);
+                File file = new File(directory, path);
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.write(file.toPath(), content);
+
+                DirCacheEntry entry = new DirCacheEntry(path);
+                entry.setFileMode(FileMode.REGULAR_FILE);
+                entry.setLength(content.length);
+                entry.setLastModified(file.lastModified());
+                entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, content));
+                dirCacheBuilder.add(entry);
+            }
+            dirCacheBuilder.commit();
+
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(dirCache.writeTree(inserter));
+            PersonIdent ident = new PersonIdent("benchmark", "benchmark@example.org");
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage("benchmark");
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate refUpdate = repository.updateRef(Constants.HEAD);
+            refUpdate.setNewObjectId(commitId);
+            refUpdate.forceUpdate();
+        }
+        return git;
+    }
+
+    static void deleteDirectory(File directory) throws IOException {
+        if (directory.exists()) {
+            try (Stream<Path> paths = Files.walk(directory.toPath())) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    static void writeFiles(File directory, int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            File file = new File(directory, "p" + (i % 100) + "/Output" + i + ".class");
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), new byte[]{(byte) i});
+        }
+    }
+}
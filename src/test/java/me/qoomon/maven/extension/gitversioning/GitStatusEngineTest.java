@@ -0,0 +1,215 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.apache.maven.model.Model;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class GitStatusEngineTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        writeFile(".gitignore", "target/\n");
+        writeFile("src/main/App.java", "class App {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void isClean_clean() throws Exception {
+        // GIVEN
+        writeFile("target/classes/App.class", "ignored");
+        Files.createDirectories(new File(tempFolder.getRoot(), "empty").toPath());
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isTrue();
+        assertThat(git.status().call().isClean()).isTrue();
+    }
+
+    @Test
+    public void isClean_modified() throws Exception {
+        // GIVEN
+        writeFile("src/main/App.java", "class App { }");
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isFalse();
+    }
+
+    @Test
+    public void isClean_missing() throws Exception {
+        // GIVEN
+        Files.delete(new File(tempFolder.getRoot(), "src/main/App.java").toPath());
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isFalse();
+    }
+
+    @Test
+    public void isClean_untracked() throws Exception {
+        // GIVEN
+        writeFile("src/test/AppTest.java", "class AppTest {}");
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isFalse();
+    }
+
+    @Test
+    public void isClean_untracked_excluded() throws Exception {
+        // GIVEN
+        writeFile("src/test/AppTest.java", "class AppTest {}");
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), false, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isTrue();
+    }
+
+    @Test
+    public void isClean_staged() throws Exception {
+        // GIVEN
+        writeFile("README.md", "readme");
+        git.add().addFilepattern("README.md").call();
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isFalse();
+    }
+
+    @Test
+    public void isClean_removed() throws Exception {
+        // GIVEN
+        git.rm().addFilepattern("src/main/App.java").call();
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isFalse();
+    }
+
+    @Test
+    public void isClean_parallel() throws Exception {
+        // GIVEN
+        writeFile("src/test/AppTest.java", "class AppTest {}");
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), false, TreeFilter.ALL, 4);
+        boolean cleanIncludingUntracked = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 4);
+
+        // THEN
+        assertThat(clean).isTrue();
+        assertThat(cleanIncludingUntracked).isFalse();
+    }
+
+    @Test
+    public void isClean_pathFilter() throws Exception {
+        // GIVEN
+        writeFile("other/Other.java", "class Other {}");
+        TreeFilter pathFilter = GitStatusEngine.pathFilter(git.getRepository(),
+                Collections.singleton(new File(tempFolder.getRoot(), "src")));
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 1);
+
+        // THEN
+        assertThat(clean).isTrue();
+    }
+
+    @Test
+    public void isClean_pathFilter_aggregatorProject() throws Exception {
+        // GIVEN
+        writeFile("pom.xml", "<project/>");
+        writeFile("api/src/Api.java", "class Api {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("modules").call();
+        Model model = new Model();
+        model.addModule("api");
+        StatusPaths statusPaths = new StatusPaths();
+        statusPaths.addProject(model, tempFolder.getRoot());
+        TreeFilter pathFilter = GitStatusEngine.pathFilter(git.getRepository(), statusPaths);
+
+        // WHEN
+        // THEN
+        // not a module directory
+        writeFile("src/main/App.java", "class App { }");
+        writeFile("other/Other.java", "class Other {}");
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 1)).isTrue();
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 2)).isTrue();
+
+        writeFile("api/src/New.java", "class New {}");
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 1)).isFalse();
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 2)).isFalse();
+        Files.delete(new File(tempFolder.getRoot(), "api/src/New.java").toPath());
+
+        writeFile("pom.xml", "<project></project>");
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 1)).isFalse();
+        assertThat(GitStatusEngine.isClean(git.getRepository(), true, pathFilter, 2)).isFalse();
+    }
+
+    @Test
+    public void isClean_sparseCheckout() throws Exception {
+        // GIVEN
+        assumeTrue(nativeGit("--version") == 0);
+        writeFile("other/Other.java", "class Other {}");
+        git.add().addFilepattern("other").call();
+        git.commit().setMessage("other").call();
+        assertThat(nativeGit("update-index", "--skip-worktree", "other/Other.java")).isEqualTo(0);
+        Files.delete(new File(tempFolder.getRoot(), "other/Other.java").toPath());
+        Files.delete(new File(tempFolder.getRoot(), "other").toPath());
+
+        // WHEN
+        boolean clean = GitStatusEngine.isClean(git.getRepository(), true, TreeFilter.ALL, 1);
+
+        // THEN
+        assertThat(clean).isTrue();
+    }
+
+    private int nativeGit(String... args) throws Exception {
+        return NativeGit.run(tempFolder.getRoot(), args);
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
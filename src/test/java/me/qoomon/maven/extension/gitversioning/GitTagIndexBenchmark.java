@@ -0,0 +1,135 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.deleteDirectory;
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.measure;
+
+/**
+ * Compares tag lookup by {@link GitTagIndex} with peeling every tag on each lookup, for growing tag counts.
+ * Tags are annotated and stored as loose refs, the worst case for peeling.
+ * {@link GitTagIndexStore} is measured without stored index, with peeled tags cached only, with valid stored index and after adding one tag.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... GitTagIndexBenchmark [directory]</code>
+ */
+public class GitTagIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File baseDirectory = new File(args.length > 0 ? args[0] : "target/tag-benchmark");
+
+        for (int tags : new int[]{1_000, 10_000, 60_000}) {
+            File directory = new File(baseDirectory, "tags-" + tags);
+            deleteDirectory(directory);
+            try (Git git = createRepository(directory, tags)) {
+                Repository repository = git.getRepository();
+                ObjectId head = repository.resolve(Constants.HEAD);
+                System.out.println("--- " + tags + " annotated tags");
+                try (ObjectReader objectReader = repository.newObjectReader()) {
+                    measure("peel all tags per lookup", () -> peelAllTags(repository, objectReader, head));
+                    measure("GitTagIndex build", () -> GitTagIndex.build(repository, objectReader).size());
+                    GitTagIndex tagIndex = GitTagIndex.build(repository, objectReader);
+                    measure("GitTagIndex 1000 lookups", () -> {
+                        int found = 0;
+                        for (int i = 0; i < 1000; i++) {
+                            found += tagIndex.getTags(head).size();
+                        }
+                        return found;
+                    });
+                    File storeFile = new File(repository.getDirectory(), "git-versioning/tag-index");
+                    File peeledTagsFile = new File(repository.getDirectory(), "git-versioning/peeled-tags");
+                    measure("GitTagIndexStore cold", () -> {
+                        Files.deleteIfExists(storeFile.toPath());
+                        Files.deleteIfExists(peeledTagsFile.toPath());
+                        return GitTagIndexStore.load(GitRefFiles.open(repository.getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS).size();
+                    });
+                    measure("GitTagIndexStore peeled cached", () -> {
+                        Files.deleteIfExists(storeFile.toPath());
+                        return GitTagIndexStore.load(GitRefFiles.open(repository.getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS).size();
+                    });
+                    measure("GitTagIndexStore warm", () -> GitTagIndexStore.load(GitRefFiles.open(repository.getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS).size());
+                    int[] newTags = {0};
+                    // includes creation of the new tag
+                    measure("GitTagIndexStore new tag", () -> {
+                        git.tag().setName("new-" + newTags[0]++).setAnnotated(true).setMessage("new").call();
+                        return GitTagIndexStore.load(GitRefFiles.open(repository.getDirectory()), () -> objectReader, GitTagIndex.ALL_TAGS).size();
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Tag lookup as done before {@link GitTagIndex}.
+     */
+    private static List<String> peelAllTags(Repository repository, ObjectReader objectReader, ObjectId head) throws Exception {
+        List<String> headTags = new ArrayList<>();
+        try (RevWalk revWalk = new RevWalk(objectReader)) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+                ObjectId objectId = ref.isPeeled() && ref.getPeeledObjectId() != null
+                        ? ref.getPeeledObjectId()
+                        : revWalk.peel(revWalk.parseAny(ref.getObjectId())).getId();
+                if (objectId.equals(head)) {
+                    headTags.add(ref.getName());
+                }
+            }
+        }
+        return headTags;
+    }
+
+    /**
+     * Creates a repository with a chain of <code>tags</code> commits, each tagged by an annotated tag.
+     */
+    static Git createRepository(File directory, int tags) throws Exception {
+        Git git = Git.init().setDirectory(directory).call();
+        Repository repository = git.getRepository();
+        File tagsDirectory = new File(repository.getDirectory(), Constants.R_TAGS);
+        PersonIdent ident = new PersonIdent("benchmark", "benchmark@example.org");
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            ObjectId treeId = inserter.insert(Constants.OBJ_TREE, new byte[0]);
+            ObjectId parentId = null;
+            for (int i = 0; i < tags; i++) {
+                CommitBuilder commit = new CommitBuilder();
+                commit.setTreeId(treeId);
+                if (parentId != null) {
+                    commit.setParentId(parentId);
+                }
+                commit.setAuthor(ident);
+                commit.setCommitter(ident);
+                commit.setMessage("commit " + i);
+                parentId = inserter.insert(commit);
+
+                TagBuilder tag = new TagBuilder();
+                tag.setTag("v" + i);
+                tag.setObjectId(parentId, Constants.OBJ_COMMIT);
+                tag.setTagger(ident);
+                tag.setMessage("tag " + i);
+                ObjectId tagId = inserter.insert(tag);
+                // loose ref, written directly to keep setup time low
+                Files.write(new File(tagsDirectory, "v" + i).toPath(), (tagId.name() + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            inserter.flush();
+
+            RefUpdate refUpdate = repository.updateRef(Constants.HEAD);
+            refUpdate.setNewObjectId(parentId);
+            refUpdate.forceUpdate();
+        }
+        return git;
+    }
+}
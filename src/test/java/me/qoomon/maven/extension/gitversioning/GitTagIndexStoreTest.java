@@ -0,0 +1,247 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitTagIndexStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void load() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+        assertThat(new File(git.getRepository().getDirectory(), "git-versioning/tag-index")).isFile();
+    }
+
+    @Test
+    public void load_unchangedRefs() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        Ref tag = git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        loadTagIndex();
+        // stored index must not peel tag again
+        deleteLooseObject(tag.getObjectId());
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+    }
+
+    @Test
+    public void load_changedRefs() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        Ref tag = git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        loadTagIndex();
+        // unchanged tags must not be peeled again
+        deleteLooseObject(tag.getObjectId());
+        RevCommit nextCommit = git.commit().setMessage("next").setAllowEmpty(true).call();
+        git.tag().setName("v2.0.0").setAnnotated(false).call();
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+        assertThat(tagIndex.getTags(nextCommit)).containsExactly("v2.0.0");
+    }
+
+    @Test
+    public void load_deletedRefs() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        loadTagIndex();
+        git.tagDelete().setTags("v1.0.0").call();
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).isEmpty();
+    }
+
+    @Test
+    public void load_looseRefUpdatedWithinTimestampGranularity() throws Exception {
+        // GIVEN
+        git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        loadTagIndex();
+        Path tagFile = new File(git.getRepository().getDirectory(), "refs/tags/v1.0.0").toPath();
+        FileTime tagFileTime = Files.getLastModifiedTime(tagFile);
+        RevCommit nextCommit = git.commit().setMessage("next").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).setForceUpdate(true).call();
+        Files.setLastModifiedTime(tagFile, tagFileTime);
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(nextCommit)).containsExactly("v1.0.0");
+    }
+
+    @Test
+    public void load_packedRefsUpdatedWithinTimestampGranularity() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        RevCommit nextCommit = git.commit().setMessage("next").setAllowEmpty(true).call();
+        Path packedRefsFile = new File(git.getRepository().getDirectory(), "packed-refs").toPath();
+        Files.write(packedRefsFile, (commit.name() + " refs/tags/v1.0.0\n").getBytes(StandardCharsets.US_ASCII));
+        loadTagIndex();
+        // index written within the same timestamp granularity as packed-refs
+        FileTime packedRefsTime = Files.getLastModifiedTime(packedRefsFile);
+        Files.setLastModifiedTime(new File(git.getRepository().getDirectory(), "git-versioning/tag-index").toPath(), packedRefsTime);
+        Files.write(packedRefsFile, (nextCommit.name() + " refs/tags/v1.0.0\n").getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(packedRefsFile, packedRefsTime);
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(nextCommit)).containsExactly("v1.0.0");
+        assertThat(tagIndex.getTags(commit)).isEmpty();
+    }
+
+    @Test
+    public void load_corruptIndexFile() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        loadTagIndex();
+        File indexFile = new File(git.getRepository().getDirectory(), "git-versioning/tag-index");
+        Files.write(indexFile.toPath(), "garbage".getBytes());
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex();
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+    }
+
+    @Test
+    public void load_tagPrefixes() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        git.tag().setName("build/1").setAnnotated(false).call();
+        loadTagIndex();
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex(Collections.singletonList("v"));
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+    }
+
+    @Test
+    public void load_sharedCache() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        Ref tag = git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.newFolder("shared-cache"), 1024 * 1024);
+        loadTagIndex(sharedCache);
+        // like a fresh clone, index is neither stored nor peeled tags cached and tag object must not be read
+        deleteRecursively(new File(git.getRepository().getDirectory(), "git-versioning"));
+        deleteLooseObject(tag.getObjectId());
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex(sharedCache);
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("v1.0.0");
+        assertThat(new File(git.getRepository().getDirectory(), "git-versioning/tag-index")).isFile();
+    }
+
+    @Test
+    public void load_sharedCache_otherTags() throws Exception {
+        // GIVEN
+        git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.newFolder("shared-cache"), 1024 * 1024);
+        loadTagIndex(sharedCache);
+        RevCommit nextCommit = git.commit().setMessage("next").setAllowEmpty(true).call();
+        git.tag().setName("v2.0.0").setAnnotated(false).call();
+        deleteRecursively(new File(git.getRepository().getDirectory(), "git-versioning"));
+
+        // WHEN
+        GitTagIndex tagIndex = loadTagIndex(sharedCache);
+
+        // THEN
+        assertThat(tagIndex.getTags(nextCommit)).containsExactly("v2.0.0");
+    }
+
+    private GitTagIndex loadTagIndex() throws Exception {
+        return loadTagIndex(GitTagIndex.ALL_TAGS);
+    }
+
+    private GitTagIndex loadTagIndex(List<String> tagPrefixes) throws Exception {
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            return GitTagIndexStore.load(GitRefFiles.open(git.getRepository().getDirectory()), () -> objectReader, tagPrefixes);
+        }
+    }
+
+    private GitTagIndex loadTagIndex(GitSharedCache sharedCache) throws Exception {
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            return GitTagIndexStore.load(GitRefFiles.open(git.getRepository().getDirectory()), () -> objectReader,
+                    GitTagIndex.ALL_TAGS, sharedCache);
+        }
+    }
+
+    private static void deleteRecursively(File directory) throws Exception {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void deleteLooseObject(ObjectId objectId) throws Exception {
+        String name = objectId.name();
+        File objectFile = new File(git.getRepository().getDirectory(), "objects/" + name.substring(0, 2) + "/" + name.substring(2));
+        Files.delete(objectFile.toPath());
+    }
+}
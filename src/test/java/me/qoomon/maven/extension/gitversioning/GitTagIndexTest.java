@@ -0,0 +1,96 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GitTagIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void getTags() throws Exception {
+        // GIVEN
+        RevCommit firstCommit = git.commit().setMessage("first").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        RevCommit secondCommit = git.commit().setMessage("second").setAllowEmpty(true).call();
+        git.tag().setName("v2.0.0").setAnnotated(true).setMessage("annotated").call();
+        git.tag().setName("latest").setAnnotated(false).call();
+        RevCommit untaggedCommit = git.commit().setMessage("untagged").setAllowEmpty(true).call();
+
+        // WHEN
+        GitTagIndex tagIndex;
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            tagIndex = GitTagIndex.build(git.getRepository(), objectReader);
+        }
+
+        // THEN
+        assertThat(tagIndex.size()).isEqualTo(2);
+        assertThat(tagIndex.getTags(firstCommit)).containsExactly("v1.0.0");
+        assertThat(tagIndex.getTags(secondCommit)).containsExactly("latest", "v2.0.0");
+        assertThat(tagIndex.getTags(untaggedCommit)).isEmpty();
+    }
+
+    @Test
+    public void getTags_noTags() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("first").setAllowEmpty(true).call();
+
+        // WHEN
+        GitTagIndex tagIndex;
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            tagIndex = GitTagIndex.build(git.getRepository(), objectReader);
+        }
+
+        // THEN
+        assertThat(tagIndex.size()).isEqualTo(0);
+        assertThat(tagIndex.getTags(commit)).isEmpty();
+    }
+
+    @Test
+    public void getTags_tagPrefixes() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("first").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        git.tag().setName("release/1.0.0").setAnnotated(true).setMessage("annotated").call();
+        Ref buildTag = git.tag().setName("build/1").setAnnotated(true).setMessage("annotated").call();
+        // unrelated tags must not be peeled
+        String buildTagId = buildTag.getObjectId().name();
+        Files.delete(new File(git.getRepository().getDirectory(),
+                "objects/" + buildTagId.substring(0, 2) + "/" + buildTagId.substring(2)).toPath());
+
+        // WHEN
+        GitTagIndex tagIndex;
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            tagIndex = GitTagIndex.build(GitRefFiles.open(git.getRepository().getDirectory()), () -> objectReader, null, Arrays.asList("release/", "v"), null);
+        }
+
+        // THEN
+        assertThat(tagIndex.getTags(commit)).containsExactly("release/1.0.0", "v1.0.0");
+    }
+}
@@ -0,0 +1,88 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitPhase;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GitTimeBudgetTest {
+
+    private final GitTimeBudget timeBudget = new GitTimeBudget(new ConsoleLogger());
+
+    @Test
+    public void call_withinBudget() throws Exception {
+        // GIVEN
+
+        // WHEN
+        String result = timeBudget.call(GitPhase.HEAD, 10_000L, () -> "result", "fallback", "fallback");
+
+        // THEN
+        assertThat(result).isEqualTo("result");
+    }
+
+    @Test
+    public void call_withoutBudget() throws Exception {
+        // GIVEN
+        Thread callerThread = Thread.currentThread();
+
+        // WHEN
+        Thread actionThread = timeBudget.call(GitPhase.HEAD, null, Thread::currentThread, null, "fallback");
+
+        // THEN
+        assertThat(actionThread).isSameAs(callerThread);
+    }
+
+    @Test
+    public void call_budgetExceeded() throws Exception {
+        // GIVEN
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // WHEN
+        String result = timeBudget.call(GitPhase.TAGS, 50L, () -> {
+            try {
+                Thread.sleep(60_000);
+                return "result";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }, "fallback", "tags are ignored");
+
+        // THEN
+        assertThat(result).isEqualTo("fallback");
+        assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void call_failure() {
+        // GIVEN
+
+        // WHEN
+        // THEN
+        assertThatThrownBy(() -> timeBudget.call(GitPhase.DISCOVERY, 10_000L, () -> {
+            throw new IOException("no git repository");
+        }, null, "fallback"))
+                .isInstanceOf(IOException.class)
+                .hasMessage("no git repository");
+    }
+
+    @Test
+    public void await_budgetExceeded() throws Exception {
+        // GIVEN
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        // WHEN
+        Boolean result = timeBudget.await(GitPhase.STATUS, 50L, future, true, "working tree is considered clean");
+
+        // THEN
+        assertThat(result).isTrue();
+        assertThat(future).isCancelled();
+    }
+}
@@ -0,0 +1,234 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitBackendType;
+import me.qoomon.maven.extension.gitversioning.config.GitConfigScope;
+import me.qoomon.maven.extension.gitversioning.config.StatusScope;
+import me.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class GitVersionContextStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+    private RevCommit commit;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void load() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+        GitVersionContext versionContext = new GitVersionContext(commit.name(), "master", "branch",
+                new VersionFormatDescription("master", "", "${branch}-SNAPSHOT"), Collections.singletonMap("branch", "master"));
+        GitVersionContextStore.save(refFiles(), key, versionContext);
+
+        // WHEN
+        GitVersionContext storedVersionContext = GitVersionContextStore.load(refFiles(), key(configuration(null)));
+
+        // THEN
+        assertThat(storedVersionContext).isNotNull();
+        assertThat(storedVersionContext.getCommit()).isEqualTo(commit.name());
+        assertThat(storedVersionContext.getCommitRefName()).isEqualTo("master");
+        assertThat(storedVersionContext.getCommitRefType()).isEqualTo("branch");
+        assertThat(storedVersionContext.getVersionFormatDescription().versionFormat).isEqualTo("${branch}-SNAPSHOT");
+        assertThat(storedVersionContext.getVersionDataMap()).containsOnly(entry("branch", "master"));
+        assertThat(storedVersionContext.resolve(new GAV("group", "artifact", "1.0.0")).getVersion()).isEqualTo("master-SNAPSHOT");
+    }
+
+    @Test
+    public void load_otherKey() throws Exception {
+        // GIVEN
+        GitVersionContextStore.save(refFiles(), key(configuration(null)), new GitVersionContext(commit.name(), commit.name(), "commit",
+                new VersionFormatDescription(), Collections.singletonMap("commit", commit.name())));
+
+        // WHEN
+        GitVersionContext storedVersionContext = GitVersionContextStore.load(refFiles(), key(configuration("feature")));
+
+        // THEN
+        assertThat(storedVersionContext).isNull();
+    }
+
+    @Test
+    public void load_corruptContextFile() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+        GitVersionContextStore.save(refFiles(), key, new GitVersionContext(commit.name(), commit.name(), "commit",
+                new VersionFormatDescription(), Collections.singletonMap("commit", commit.name())));
+        File contextFile = new File(git.getRepository().getDirectory(), "git-versioning/version-context");
+        Files.write(contextFile.toPath(), "key=garbage\\u00".getBytes());
+
+        // WHEN
+        GitVersionContext storedVersionContext = GitVersionContextStore.load(refFiles(), key);
+
+        // THEN
+        assertThat(storedVersionContext).isNull();
+    }
+
+    @Test
+    public void key_newBranchCommit() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+
+        // WHEN
+        git.commit().setMessage("next").setAllowEmpty(true).call();
+
+        // THEN
+        assertThat(key(configuration(null))).isNotEqualTo(key);
+    }
+
+    @Test
+    public void key_otherBranch() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+
+        // WHEN
+        git.checkout().setCreateBranch(true).setName("feature").call();
+
+        // THEN
+        assertThat(key(configuration(null))).isNotEqualTo(key);
+    }
+
+    @Test
+    public void key_providedBranch() throws Exception {
+        // GIVEN
+        // WHEN
+        String key = key(configuration(null));
+
+        // THEN
+        assertThat(key(configuration("feature"))).isNotEqualTo(key);
+        assertThat(key(configuration(null))).isEqualTo(key);
+    }
+
+    @Test
+    public void key_newTag_branch() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+
+        // WHEN
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+
+        // THEN
+        // tags are not considered for branches
+        assertThat(key(configuration(null))).isEqualTo(key);
+    }
+
+    @Test
+    public void key_newTag_detachedHead() throws Exception {
+        // GIVEN
+        git.checkout().setName(commit.name()).call();
+        String key = key(configuration(null));
+
+        // WHEN
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+
+        // THEN
+        assertThat(key(configuration(null))).isNotEqualTo(key);
+    }
+
+    @Test
+    public void key_otherVersionFormat() throws Exception {
+        // GIVEN
+        String key = key(configuration(null));
+
+        // WHEN
+        VersioningConfiguration configuration = new VersioningConfiguration(true,
+                Collections.singletonList(new VersionFormatDescription(".*", "", "${branch}")),
+                Collections.emptyList(), new VersionFormatDescription(), null, null,
+                StatusScope.FULL, 1, GitBackendType.JGIT, GitConfigScope.SYSTEM, false, true, null, 0, null, null, Collections.emptyMap());
+
+        // THEN
+        assertThat(key(configuration)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void load_sharedCache() throws Exception {
+        // GIVEN
+        GitSharedCache sharedCache = new GitSharedCache(tempFolder.newFolder("shared-cache"), 1024 * 1024);
+        GitVersionContextStore.save(sharedCache, sharedKey(git, configuration(null)), new GitVersionContext(commit.name(), "master", "branch",
+                new VersionFormatDescription(".*", "", "${branch}-SNAPSHOT"), Collections.singletonMap("branch", "master")));
+        Git clone = Git.cloneRepository().setURI(tempFolder.getRoot().toURI().toString())
+                .setDirectory(tempFolder.newFolder("clone")).call();
+
+        // WHEN
+        GitVersionContext sharedVersionContext;
+        try {
+            sharedVersionContext = GitVersionContextStore.load(sharedCache, sharedKey(clone, configuration(null)));
+        } finally {
+            clone.close();
+        }
+
+        // THEN
+        assertThat(sharedVersionContext).isNotNull();
+        assertThat(sharedVersionContext.getCommitRefName()).isEqualTo("master");
+    }
+
+    @Test
+    public void sharedKey_newBranchCommit() throws Exception {
+        // GIVEN
+        String sharedKey = sharedKey(git, configuration(null));
+
+        // WHEN
+        git.commit().setMessage("next").setAllowEmpty(true).call();
+
+        // THEN
+        assertThat(sharedKey(git, configuration(null))).isNotEqualTo(sharedKey);
+    }
+
+    @Test
+    public void sharedKey_newTag_detachedHead() throws Exception {
+        // GIVEN
+        git.checkout().setName(commit.name()).call();
+        String sharedKey = sharedKey(git, configuration(null));
+
+        // WHEN
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+
+        // THEN
+        assertThat(sharedKey(git, configuration(null))).isNotEqualTo(sharedKey);
+    }
+
+    private static String sharedKey(Git git, VersioningConfiguration configuration) throws Exception {
+        return GitVersionContextStore.sharedKey(GitRefFiles.open(git.getRepository().getDirectory()), configuration);
+    }
+
+    private GitRefFiles refFiles() throws Exception {
+        return GitRefFiles.open(git.getRepository().getDirectory());
+    }
+
+    private String key(VersioningConfiguration configuration) throws Exception {
+        return GitVersionContextStore.key(refFiles(), configuration);
+    }
+
+    private static VersioningConfiguration configuration(String providedBranch) {
+        return new VersioningConfiguration(true,
+                Collections.singletonList(new VersionFormatDescription(".*", "", "${branch}-SNAPSHOT")),
+                Collections.singletonList(new VersionFormatDescription("v(.*)", "v", "${tag}")),
+                new VersionFormatDescription(), providedBranch, null,
+                StatusScope.FULL, 1, GitBackendType.JGIT, GitConfigScope.SYSTEM, false, true, null, 0, null, null, Collections.emptyMap());
+    }
+}
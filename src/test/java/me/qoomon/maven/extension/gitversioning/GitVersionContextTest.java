@@ -0,0 +1,89 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class GitVersionContextTest {
+
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+    @Test
+    public void resolve_moduleVersion() {
+        // GIVEN
+        GitVersionContext versionContext = versionContext("${version}+${branch}");
+
+        // WHEN
+        GAVGit api = versionContext.resolve(new GAV("group", "api", "1.0.0-SNAPSHOT"));
+        GAVGit service = versionContext.resolve(new GAV("group", "service", "2.1.0-SNAPSHOT"));
+
+        // THEN
+        assertThat(api.getVersion()).isEqualTo("1.0.0-SNAPSHOT+feature-x");
+        assertThat(service.getVersion()).isEqualTo("2.1.0-SNAPSHOT+feature-x");
+        assertSameRef(api, service);
+    }
+
+    @Test
+    public void resolve_moduleReleaseVersion() {
+        // GIVEN
+        GitVersionContext versionContext = versionContext("${version.release}-${feature}-SNAPSHOT");
+
+        // WHEN
+        GAVGit api = versionContext.resolve(new GAV("group", "api", "1.0.0-SNAPSHOT"));
+        GAVGit service = versionContext.resolve(new GAV("group", "service", "2.1.0"));
+
+        // THEN
+        assertThat(api.getVersion()).isEqualTo("1.0.0-x-SNAPSHOT");
+        assertThat(service.getVersion()).isEqualTo("2.1.0-x-SNAPSHOT");
+        assertSameRef(api, service);
+    }
+
+    @Test
+    public void resolve_moduleIndependentVersion() {
+        // GIVEN
+        GitVersionContext versionContext = versionContext("${feature}-SNAPSHOT");
+
+        // WHEN
+        GAVGit api = versionContext.resolve(new GAV("group", "api", "1.0.0-SNAPSHOT"));
+        GAVGit service = versionContext.resolve(new GAV("group", "service", "2.1.0-SNAPSHOT"));
+
+        // THEN
+        assertThat(api.getVersion()).isEqualTo("x-SNAPSHOT");
+        assertThat(service.getVersion()).isEqualTo("x-SNAPSHOT");
+        assertSameRef(api, service);
+    }
+
+    @Test
+    public void resolve_sharedGroupsUnchanged() {
+        // GIVEN
+        GitVersionContext versionContext = versionContext("${version}-${feature}");
+
+        // WHEN
+        versionContext.resolve(new GAV("group", "api", "1.0.0-SNAPSHOT"));
+        versionContext.resolve(new GAV("group", "service", "2.1.0-SNAPSHOT"));
+
+        // THEN
+        // module placeholders are not added to repository wide version data
+        assertThat(versionContext.getVersionDataMap()).containsOnly(entry("branch", "feature/x"), entry("feature", "x"));
+    }
+
+    private static GitVersionContext versionContext(String versionFormat) {
+        Map<String, String> versionDataMap = new HashMap<>();
+        versionDataMap.put("branch", "feature/x");
+        // named group of branch pattern
+        versionDataMap.put("feature", "x");
+        return new GitVersionContext(COMMIT, "feature/x", "branch",
+                new VersionFormatDescription("feature/(?<feature>.+)", "", versionFormat), versionDataMap);
+    }
+
+    private static void assertSameRef(GAVGit actual, GAVGit expected) {
+        assertThat(actual.getCommit()).isEqualTo(COMMIT).isEqualTo(expected.getCommit());
+        assertThat(actual.getCommitRefName()).isEqualTo("feature/x").isEqualTo(expected.getCommitRefName());
+        assertThat(actual.getCommitRefType()).isEqualTo("branch").isEqualTo(expected.getCommitRefType());
+    }
+}
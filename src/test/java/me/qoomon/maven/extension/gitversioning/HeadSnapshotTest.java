@@ -0,0 +1,78 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeadSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+    }
+
+    @After
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void read_branch() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        git.checkout().setCreateBranch(true).setName("feature/x").call();
+
+        // WHEN
+        HeadSnapshot head;
+        try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
+            head = HeadSnapshot.read(GitRefFiles.open(git.getRepository().getDirectory()), GitTagIndex.build(git.getRepository(), objectReader));
+        }
+
+        // THEN
+        assertThat(head.getCommit()).isEqualTo(commit.name());
+        assertThat(head.getBranch()).contains("feature/x");
+        assertThat(head.getTags()).containsExactly("v1.0.0");
+    }
+
+    @Test
+    public void read_detached() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        git.checkout().setName(commit.name()).call();
+
+        // WHEN
+        HeadSnapshot head = HeadSnapshot.read(GitRefFiles.open(git.getRepository().getDirectory()), null);
+
+        // THEN
+        assertThat(head.getCommit()).isEqualTo(commit.name());
+        assertThat(head.getBranch()).isEmpty();
+        assertThat(head.getTags()).isEmpty();
+    }
+
+    @Test
+    public void read_noCommits() throws Exception {
+        // GIVEN
+
+        // WHEN
+        HeadSnapshot head = HeadSnapshot.read(GitRefFiles.open(git.getRepository().getDirectory()), null);
+
+        // THEN
+        assertThat(head.getCommit()).isEqualTo("0000000000000000000000000000000000000000");
+        assertThat(head.getBranch()).contains("master");
+        assertThat(head.getTags()).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the local <code>git</code> executable for tests, e.g. to create index features JGit does not write.
+ * <p>
+ * Output is captured and only printed if git fails, inherited output would be written to the stdout channel of the surefire fork.
+ */
+final class NativeGit {
+
+    private NativeGit() {
+    }
+
+    /**
+     * @return true if <code>git</code> executable is available
+     */
+    static boolean isAvailable() throws IOException, InterruptedException {
+        return run(null, "--version") == 0;
+    }
+
+    /**
+     * @param directory working directory, null for current directory
+     * @param args      git arguments
+     * @return exit code, -1 if <code>git</code> executable is not available
+     */
+    static int run(File directory, String... args) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        // a file instead of a pipe, background processes of hooks may keep output open
+        final File output = File.createTempFile("git-output", ".txt");
+        try {
+            final Process process;
+            try {
+                process = new ProcessBuilder(command).directory(directory)
+                        .redirectErrorStream(true).redirectOutput(output).start();
+            } catch (IOException e) {
+                // git executable not available
+                return -1;
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                System.err.println(String.join(" ", command) + " - exit code " + exitCode + System.lineSeparator()
+                        + new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+            }
+            return exitCode;
+        } finally {
+            Files.deleteIfExists(output.toPath());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Native backend results have to match default backend results.
+ */
+public class NativeGitBackendTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final GitBackend nativeBackend = new NativeGitBackend();
+    private final GitBackend jGitBackend = new JGitBackend(new ConsoleLogger());
+
+    private Git git;
+    private PooledRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(NativeGit.isAvailable());
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        repository = new PooledRepository(git.getRepository().getDirectory(), tempFolder.getRoot());
+    }
+
+    @After
+    public void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+        if (git != null) {
+            git.close();
+        }
+    }
+
+    @Test
+    public void readHead_branch() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        git.tag().setName("release/1.0.0").setAnnotated(false).call();
+        git.tag().setName("build/1").setAnnotated(false).call();
+        git.checkout().setCreateBranch(true).setName("feature/x").call();
+
+        // WHEN
+        HeadSnapshot head = nativeBackend.readHead(repository, Arrays.asList("release/", "v"));
+
+        // THEN
+        assertThat(head.getCommit()).isEqualTo(commit.name());
+        assertThat(head.getBranch()).contains("feature/x");
+        assertThat(head.getTags()).containsExactly("release/1.0.0", "v1.0.0");
+        assertSameHead(head, jGitBackend.readHead(repository, Arrays.asList("release/", "v")));
+    }
+
+    @Test
+    public void readHead_detached() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(false).call();
+        git.checkout().setName(commit.name()).call();
+
+        // WHEN
+        HeadSnapshot head = nativeBackend.readHead(repository, null);
+
+        // THEN
+        assertThat(head.getBranch()).isEmpty();
+        assertThat(head.getTags()).isEmpty();
+        assertSameHead(head, jGitBackend.readHead(repository, null));
+    }
+
+    @Test
+    public void readHead_noCommits() throws Exception {
+        // GIVEN
+
+        // WHEN
+        HeadSnapshot head = nativeBackend.readHead(repository, GitTagIndex.ALL_TAGS);
+
+        // THEN
+        assertSameHead(head, jGitBackend.readHead(repository, GitTagIndex.ALL_TAGS));
+    }
+
+    @Test
+    public void readTags() throws Exception {
+        // GIVEN
+        RevCommit commit = git.commit().setMessage("init").setAllowEmpty(true).call();
+        git.tag().setName("v1.0.0").setAnnotated(true).setMessage("annotated").call();
+        git.tag().setName("build/1").setAnnotated(false).call();
+        git.commit().setMessage("next").setAllowEmpty(true).call();
+        git.tag().setName("v2.0.0").setAnnotated(false).call();
+
+        // WHEN
+        List<String> tags = nativeBackend.readTags(repository, commit.name(), Collections.singletonList("v"));
+
+        // THEN
+        assertThat(tags).containsExactly("v1.0.0");
+        assertThat(jGitBackend.readTags(repository, commit.name(), Collections.singletonList("v"))).isEqualTo(tags);
+    }
+
+    @Test
+    public void isWorkingTreeClean() throws Exception {
+        // GIVEN
+        writeFile("api/Api.java", "class Api {}");
+        writeFile("service/Service.java", "class Service {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+
+        // WHEN
+        // THEN
+        assertClean(true, true);
+
+        writeFile("service/New.java", "class New {}");
+        assertClean(false, true);
+        assertClean(true, false);
+        StatusPaths apiPaths = new StatusPaths();
+        apiPaths.addDirectory(new File(tempFolder.getRoot(), "api"));
+        assertThat(nativeBackend.isWorkingTreeClean(repository, true, apiPaths, 1)).isTrue();
+
+        writeFile("api/Api.java", "class Api { }");
+        assertClean(false, false);
+    }
+
+    @Test
+    public void isWorkingTreeClean_aggregatorProject() throws Exception {
+        // GIVEN
+        writeFile("pom.xml", "<project/>");
+        writeFile("api/Api.java", "class Api {}");
+        writeFile("other/Other.java", "class Other {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        Model model = new Model();
+        model.addModule("api");
+        StatusPaths paths = new StatusPaths();
+        paths.addProject(model, tempFolder.getRoot());
+
+        // WHEN
+        // THEN
+        writeFile("other/Other.java", "class Other { }");
+        writeFile("other/New.java", "class New {}");
+        assertClean(true, true, paths);
+
+        writeFile("New.txt", "new");
+        assertClean(false, true, paths);
+        assertClean(true, false, paths);
+
+        writeFile("api/Api.java", "class Api { }");
+        assertClean(false, false, paths);
+    }
+
+    @Test
+    public void isWorkingTreeClean_directoryOutsideWorkTree() throws Exception {
+        // GIVEN
+        writeFile("api/Api.java", "class Api {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        StatusPaths paths = new StatusPaths();
+        paths.addDirectory(new File(tempFolder.getRoot(), "api"));
+        paths.addDirectory(new File(tempFolder.getRoot(), "../shared"));
+
+        // WHEN
+        // THEN
+        writeFile("other/Other.java", "class Other {}");
+        assertClean(true, true, paths);
+
+        writeFile("api/Api.java", "class Api { }");
+        assertClean(false, true, paths);
+    }
+
+    @Test
+    public void isWorkingTreeClean_allDirectoriesOutsideWorkTree() throws Exception {
+        // GIVEN
+        writeFile("api/Api.java", "class Api {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        StatusPaths paths = new StatusPaths();
+        paths.addDirectory(new File(tempFolder.getRoot(), "../shared"));
+
+        // WHEN
+        // THEN
+        writeFile("api/Api.java", "class Api { }");
+        assertClean(true, true, paths);
+    }
+
+    @Test
+    public void isWorkingTreeClean_moduleOutsideReactorRoot() throws Exception {
+        // GIVEN
+        writeFile("app/pom.xml", "<project/>");
+        writeFile("lib/Lib.java", "class Lib {}");
+        writeFile("other/Other.java", "class Other {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        // discovered from reactor root, module lib is referenced as ../lib
+        File reactorRoot = new File(tempFolder.getRoot(), "app");
+        StatusPaths paths = new StatusPaths();
+        paths.addDirectory(reactorRoot);
+        paths.addDirectory(new File(reactorRoot, "../lib"));
+
+        try (PooledRepository appRepository = new PooledRepository(git.getRepository().getDirectory(), reactorRoot)) {
+            // WHEN
+            // THEN
+            writeFile("other/Other.java", "class Other { }");
+            assertClean(appRepository, true, true, paths);
+
+            writeFile("lib/Lib.java", "class Lib { }");
+            assertClean(appRepository, false, true, paths);
+            assertClean(appRepository, false, true, new StatusPaths());
+        }
+    }
+
+    @Test
+    public void isWorkingTreeClean_splitIndex() throws Exception {
+        // GIVEN
+        writeFile("api/Api.java", "class Api {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        assertThat(NativeGit.run(tempFolder.getRoot(), "update-index", "--split-index")).isEqualTo(0);
+
+        // WHEN
+        // THEN
+        assertClean(true, true);
+
+        writeFile("api/Api.java", "class Api { }");
+        assertClean(false, true);
+    }
+
+    private void assertClean(boolean expected, boolean includeUntracked) throws IOException {
+        assertClean(expected, includeUntracked, new StatusPaths());
+    }
+
+    private void assertClean(boolean expected, boolean includeUntracked, StatusPaths paths) throws IOException {
+        assertClean(repository, expected, includeUntracked, paths);
+    }
+
+    private void assertClean(PooledRepository repository, boolean expected, boolean includeUntracked,
+                             StatusPaths paths) throws IOException {
+        assertThat(nativeBackend.isWorkingTreeClean(repository, includeUntracked, paths, 1)).isEqualTo(expected);
+        assertThat(jGitBackend.isWorkingTreeClean(repository, includeUntracked, paths, 1)).isEqualTo(expected);
+    }
+
+    private static void assertSameHead(HeadSnapshot actual, HeadSnapshot expected) {
+        assertThat(actual.getCommit()).isEqualTo(expected.getCommit());
+        assertThat(actual.getBranch()).isEqualTo(expected.getBranch());
+        assertThat(actual.getTags()).isEqualTo(expected.getTags());
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
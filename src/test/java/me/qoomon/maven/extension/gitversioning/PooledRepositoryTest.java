@@ -0,0 +1,161 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.extension.gitversioning.config.GitConfigScope;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.SystemReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class PooledRepositoryTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final SystemReader systemReader = SystemReader.getInstance();
+
+    private Git git;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(new File(tempFolder.getRoot(), "repository")).call();
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString("versioning", null, "test", "repository");
+        config.save();
+        // user config is located by system reader
+        FileBasedConfig userConfig = new FileBasedConfig(tempFolder.newFile(".gitconfig"), FS.DETECTED);
+        userConfig.setString("versioning", null, "user", "user");
+        userConfig.save();
+        SystemReader.setInstance(new UserConfigSystemReader(systemReader, userConfig.getFile()));
+    }
+
+    @After
+    public void tearDown() {
+        SystemReader.setInstance(systemReader);
+        git.close();
+    }
+
+    @Test
+    public void openRepository_userScope() throws Exception {
+        // GIVEN
+        File gitDir = git.getRepository().getDirectory();
+
+        // WHEN
+        try (Repository repository = PooledRepository.openRepository(gitDir, GitConfigScope.USER)) {
+
+            // THEN
+            assertThat(repository.getConfig().getString("versioning", null, "test")).isEqualTo("repository");
+            assertThat(repository.getConfig().getString("versioning", null, "user")).isEqualTo("user");
+            assertThat(repository.getFS().getGitSystemConfig()).isNull();
+            assertThat(repository.getFS().userHome()).isEqualTo(FS.DETECTED.userHome());
+        }
+    }
+
+    @Test
+    public void openRepository_repositoryScope() throws Exception {
+        // GIVEN
+        File gitDir = git.getRepository().getDirectory();
+
+        // WHEN
+        try (Repository repository = PooledRepository.openRepository(gitDir, GitConfigScope.REPOSITORY)) {
+
+            // THEN
+            assertThat(repository.getConfig().getString("versioning", null, "test")).isEqualTo("repository");
+            assertThat(repository.getConfig().getString("versioning", null, "user")).isNull();
+            assertThat(repository.getFS().getGitSystemConfig()).isNull();
+            // e.g. for ~/ paths of core.excludesFile
+            assertThat(repository.getFS().userHome()).isEqualTo(FS.DETECTED.userHome());
+        }
+    }
+
+    @Test
+    public void openRepository_repositoryScope_configChanged() throws Exception {
+        // GIVEN
+        File gitDir = git.getRepository().getDirectory();
+        try (Repository repository = PooledRepository.openRepository(gitDir, GitConfigScope.REPOSITORY)) {
+            repository.getConfig();
+
+            // WHEN
+            FileBasedConfig config = new FileBasedConfig(new File(gitDir, "config"), FS.DETECTED);
+            config.load();
+            config.setString("versioning", null, "test", "changed");
+            config.save();
+
+            // THEN
+            // config is reloaded like by JGit, a racily clean file snapshot counts as modified
+            assertThat(repository.getConfig().getString("versioning", null, "test")).isEqualTo("changed");
+        }
+    }
+
+    @Test
+    public void openRepository_repositoryScope_notFound() {
+        // WHEN
+        Throwable thrown = catchThrowable(() -> PooledRepository.openRepository(
+                new File(tempFolder.getRoot(), "missing/.git"), GitConfigScope.REPOSITORY));
+
+        // THEN
+        assertThat(thrown).isInstanceOf(RepositoryNotFoundException.class);
+    }
+
+    /**
+     * Default system reader with user config at <code>userConfigFile</code>.
+     */
+    private static class UserConfigSystemReader extends SystemReader {
+
+        private final SystemReader delegate;
+        private final File userConfigFile;
+
+        UserConfigSystemReader(SystemReader delegate, File userConfigFile) {
+            this.delegate = delegate;
+            this.userConfigFile = userConfigFile;
+        }
+
+        @Override
+        public String getHostname() {
+            return delegate.getHostname();
+        }
+
+        @Override
+        public String getenv(String variable) {
+            return delegate.getenv(variable);
+        }
+
+        @Override
+        public String getProperty(String key) {
+            return delegate.getProperty(key);
+        }
+
+        @Override
+        public FileBasedConfig openUserConfig(Config parent, FS fs) {
+            return new FileBasedConfig(parent, userConfigFile, fs);
+        }
+
+        @Override
+        public FileBasedConfig openSystemConfig(Config parent, FS fs) {
+            return delegate.openSystemConfig(parent, fs);
+        }
+
+        @Override
+        public long getCurrentTime() {
+            return delegate.getCurrentTime();
+        }
+
+        @Override
+        public int getTimezone(long when) {
+            return delegate.getTimezone(when);
+        }
+    }
+}
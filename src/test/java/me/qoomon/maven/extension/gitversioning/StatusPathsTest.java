@@ -0,0 +1,87 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import me.qoomon.maven.ModelUtil;
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatusPathsTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final GitBackend backend = new JGitBackend(new ConsoleLogger());
+
+    private Git git;
+    private PooledRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(tempFolder.getRoot()).call();
+        repository = new PooledRepository(git.getRepository().getDirectory(), tempFolder.getRoot());
+    }
+
+    @After
+    public void tearDown() {
+        repository.close();
+        git.close();
+    }
+
+    @Test
+    public void reactor_laterModule() throws Exception {
+        // GIVEN
+        Model rootModel = new Model();
+        rootModel.addModule("api");
+        rootModel.addModule("service");
+        File rootPomFile = new File(tempFolder.getRoot(), "pom.xml");
+        ModelUtil.writeModel(rootModel, rootPomFile);
+        writeFile("api/pom.xml", "<project/>");
+        writeFile("service/pom.xml", "<project/>");
+        writeFile("service/Service.java", "class Service {}");
+        writeFile("other/Other.java", "class Other {}");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("init").call();
+        // status is started by first accepted project, module service is read later
+        StatusPaths acceptedPaths = new StatusPaths();
+        acceptedPaths.addProject(new Model(), new File(tempFolder.getRoot(), "api"));
+
+        // WHEN
+        StatusPaths paths = StatusPaths.reactor(rootPomFile, tempFolder.getRoot());
+        paths.addAll(acceptedPaths);
+
+        // THEN
+        assertThat(paths.getDirectories()).contains(new File(tempFolder.getRoot(), "service"));
+        writeFile("other/Other.java", "class Other { }");
+        assertThat(backend.isWorkingTreeClean(repository, true, paths, 1)).isTrue();
+        writeFile("service/Service.java", "class Service { }");
+        assertThat(backend.isWorkingTreeClean(repository, true, paths, 1)).isFalse();
+    }
+
+    @Test
+    public void reactor_noPomFile() throws Exception {
+        // WHEN
+        StatusPaths paths = StatusPaths.reactor(null, tempFolder.getRoot());
+
+        // THEN
+        assertThat(paths.getDirectories()).containsExactly(tempFolder.getRoot());
+        assertThat(paths.getFileDirectories()).isEmpty();
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package me.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static me.qoomon.maven.extension.gitversioning.GitStatusBenchmark.measure;
+
+/**
+ * Compares JGit window cache configs on a peel heavy workload, peeling packed annotated tags to their commits.
+ * Tag ids are collected once, so reading refs is not measured.
+ * Each run uses a new object reader, pack windows are only shared through the window cache.
+ * <p>
+ * Not a unit test, run manually e.g. <code>java -cp target/test-classes:target/classes:... WindowCacheBenchmark [directory] [tags]</code>
+ */
+public class WindowCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(args.length > 0 ? args[0] : "target/window-cache-benchmark");
+        int tags = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        if (!new File(directory, ".git").exists()) {
+            GitTagIndexBenchmark.createRepository(directory, tags).close();
+            // objects in a single pack, tag refs stay loose and unpeeled
+            GitBackendBenchmark.nativeGit(directory, "repack", "-a", "-d", "-q");
+        }
+
+        Map<String, WindowCacheConfig> windowCacheConfigs = new LinkedHashMap<>();
+        windowCacheConfigs.put("default", new WindowCacheConfig());
+        WindowCacheConfig mmap = new WindowCacheConfig();
+        mmap.setPackedGitMMAP(true);
+        windowCacheConfigs.put("mmap", mmap);
+        WindowCacheConfig largeWindows = new WindowCacheConfig();
+        largeWindows.setPackedGitWindowSize(WindowCacheConfig.MB);
+        largeWindows.setPackedGitLimit(256L * WindowCacheConfig.MB);
+        windowCacheConfigs.put("1m windows, 256m limit", largeWindows);
+        WindowCacheConfig mmapLargeWindows = new WindowCacheConfig();
+        mmapLargeWindows.setPackedGitMMAP(true);
+        mmapLargeWindows.setPackedGitWindowSize(WindowCacheConfig.MB);
+        mmapLargeWindows.setPackedGitLimit(256L * WindowCacheConfig.MB);
+        windowCacheConfigs.put("mmap, 1m windows, 256m limit", mmapLargeWindows);
+
+        try (Git git = Git.open(directory)) {
+            Repository repository = git.getRepository();
+            List<ObjectId> tagIds = new ArrayList<>();
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+                tagIds.add(ref.getObjectId());
+            }
+            System.out.println("--- " + tagIds.size() + " packed annotated tags");
+            for (Map.Entry<String, WindowCacheConfig> entry : windowCacheConfigs.entrySet()) {
+                entry.getValue().install();
+                measure(entry.getKey(), () -> {
+                    try (RevWalk revWalk = new RevWalk(repository.newObjectReader())) {
+                        int commits = 0;
+                        for (ObjectId tagId : tagIds) {
+                            if (revWalk.peel(revWalk.parseAny(tagId)).getType() == Constants.OBJ_COMMIT) {
+                                commits++;
+                            }
+                        }
+                        return commits;
+                    }
+                });
+            }
+        }
+        new WindowCacheConfig().install();
+    }
+}
@@ -0,0 +1,70 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+import me.qoomon.maven.extension.gitversioning.config.model.Configuration;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class VersioningConfigurationProviderTest {
+
+    @Test
+    public void parseWindowCacheConfig() {
+        // GIVEN
+        Configuration configurationModel = new Configuration();
+        configurationModel.packedGitMMAP = "true";
+        configurationModel.packedGitWindowSize = "1m";
+        configurationModel.packedGitLimit = " 512m ";
+        configurationModel.packedGitOpenFiles = "256";
+        configurationModel.deltaBaseCacheLimit = "64k";
+
+        // WHEN
+        WindowCacheConfig windowCacheConfig = VersioningConfigurationProvider.parseWindowCacheConfig(configurationModel);
+
+        // THEN
+        assertThat(windowCacheConfig.isPackedGitMMAP()).isTrue();
+        assertThat(windowCacheConfig.getPackedGitWindowSize()).isEqualTo(WindowCacheConfig.MB);
+        assertThat(windowCacheConfig.getPackedGitLimit()).isEqualTo(512L * WindowCacheConfig.MB);
+        assertThat(windowCacheConfig.getPackedGitOpenFiles()).isEqualTo(256);
+        assertThat(windowCacheConfig.getDeltaBaseCacheLimit()).isEqualTo(64 * WindowCacheConfig.KB);
+    }
+
+    @Test
+    public void parseWindowCacheConfig_defaults() {
+        // GIVEN
+        Configuration configurationModel = new Configuration();
+        configurationModel.packedGitMMAP = "true";
+
+        // WHEN
+        WindowCacheConfig windowCacheConfig = VersioningConfigurationProvider.parseWindowCacheConfig(configurationModel);
+
+        // THEN
+        assertThat(windowCacheConfig.isPackedGitMMAP()).isTrue();
+        assertThat(windowCacheConfig.getPackedGitWindowSize()).isEqualTo(new WindowCacheConfig().getPackedGitWindowSize());
+    }
+
+    @Test
+    public void parseWindowCacheConfig_notConfigured() {
+        // GIVEN
+        Configuration configurationModel = new Configuration();
+
+        // WHEN
+        WindowCacheConfig windowCacheConfig = VersioningConfigurationProvider.parseWindowCacheConfig(configurationModel);
+
+        // THEN
+        assertThat(windowCacheConfig).isNull();
+    }
+
+    @Test
+    public void parseWindowCacheConfig_invalidValue() {
+        // GIVEN
+        Configuration configurationModel = new Configuration();
+        configurationModel.packedGitLimit = "lots";
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> VersioningConfigurationProvider.parseWindowCacheConfig(configurationModel))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("invalid window cache config");
+    }
+}
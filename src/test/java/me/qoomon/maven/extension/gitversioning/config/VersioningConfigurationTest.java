@@ -0,0 +1,59 @@
+package me.qoomon.maven.extension.gitversioning.config;
+
+import me.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VersioningConfigurationTest {
+
+    @Test
+    public void literalPrefix() {
+        assertThat(VersioningConfiguration.literalPrefix("v([0-9].*)")).isEqualTo("v");
+        assertThat(VersioningConfiguration.literalPrefix("^version/(.*)")).isEqualTo("version/");
+        assertThat(VersioningConfiguration.literalPrefix("release\\-1\\.(.*)")).isEqualTo("release-1.");
+        assertThat(VersioningConfiguration.literalPrefix("vv?(.*)")).isEqualTo("v");
+        assertThat(VersioningConfiguration.literalPrefix("ab*c")).isEqualTo("a");
+        assertThat(VersioningConfiguration.literalPrefix("ab{0,2}c")).isEqualTo("a");
+        assertThat(VersioningConfiguration.literalPrefix("ab+c")).isEqualTo("ab");
+        assertThat(VersioningConfiguration.literalPrefix("v\\d+")).isEqualTo("v");
+        assertThat(VersioningConfiguration.literalPrefix("v1|build.*")).isEqualTo("");
+        assertThat(VersioningConfiguration.literalPrefix(".*")).isEqualTo("");
+        assertThat(VersioningConfiguration.literalPrefix("(?i)v.*")).isEqualTo("");
+        assertThat(VersioningConfiguration.literalPrefix("\\Qv.1\\E")).isEqualTo("");
+        assertThat(VersioningConfiguration.literalPrefix("v1\\|2")).isEqualTo("v1|2");
+    }
+
+    @Test
+    public void getTagPrefixes() {
+        // GIVEN
+        VersioningConfiguration configuration = configuration(
+                new VersionFormatDescription("version/(.*)", "version/", "${tag}"),
+                new VersionFormatDescription("v([0-9].*)", "v", "${tag}"),
+                new VersionFormatDescription("release/(.*)", "release/", "${tag}"));
+
+        // WHEN
+        // THEN
+        assertThat(configuration.getTagPrefixes()).containsExactly("release/", "v");
+    }
+
+    @Test
+    public void getTagPrefixes_matchAll() {
+        // GIVEN
+        VersioningConfiguration configuration = configuration(
+                new VersionFormatDescription("v([0-9].*)", "v", "${tag}"),
+                new VersionFormatDescription(".*", "", "${tag}"));
+
+        // WHEN
+        // THEN
+        assertThat(configuration.getTagPrefixes()).containsExactly("");
+    }
+
+    private static VersioningConfiguration configuration(VersionFormatDescription... tagVersionDescriptions) {
+        return new VersioningConfiguration(true, Collections.emptyList(), Arrays.asList(tagVersionDescriptions),
+                new VersionFormatDescription(), null, null, StatusScope.FULL, 1, GitBackendType.JGIT, GitConfigScope.SYSTEM, false, true, null, 0, null, null, Collections.emptyMap());
+    }
+}